@@ -0,0 +1,80 @@
+package uz.fido.ProductRestApiIntegrationTest;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cold start of the packaged application, one fresh JVM per measurement, from process launch
+ * until the context has refreshed ({@code spring.context.exit=onRefresh}). Needs the extracted
+ * application and CDS archive from the fast-startup Maven profile and, for the variants using
+ * the default profile, the local benchmark database:
+ * {@code ./mvnw -Pfast-startup,benchmark verify -DskipTests -Djmh.includes=StartupBenchmark}
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 10)
+@Fork(1)
+@State(Scope.Benchmark)
+public class StartupBenchmark {
+
+    /**
+     * {@code default}: Flyway and {@code ddl-auto=update} at boot; {@code prod}: the prod profile;
+     * {@code prod-aot} adds the AOT-generated initializers; {@code prod-aot-cds} the CDS archive.
+     */
+    @Param({"default", "prod", "prod-aot", "prod-aot-cds"})
+    public String variant;
+
+    private List<String> command;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Path application = Path.of(System.getProperty("startup.application-dir", "target/application"));
+        Path jar = application.resolve("ProductRestApiIntegrationTest-0.0.1-SNAPSHOT.jar");
+        Path archive = application.resolve("application.jsa");
+        if (!Files.isRegularFile(jar) || !Files.isRegularFile(archive)) {
+            throw new IllegalStateException("No extracted application in " + application + "; build with -Pfast-startup first");
+        }
+
+        command = new ArrayList<>();
+        command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+        if (variant.endsWith("-cds")) {
+            command.add("-XX:SharedArchiveFile=" + archive);
+        }
+        if (variant.contains("-aot")) {
+            command.add("-Dspring.aot.enabled=true");
+        }
+        command.add("-Dspring.context.exit=onRefresh");
+        command.add("-jar");
+        command.add(jar.toString());
+        if (variant.startsWith("prod")) {
+            command.add("--spring.profiles.active=benchmark,prod");
+        } else {
+            // The boot-time schema handling the prod profile replaces: Flyway, then Hibernate
+            // inspecting the schema it has just migrated
+            command.add("--spring.profiles.active=benchmark");
+            command.add("--spring.flyway.enabled=true");
+            command.add("--spring.jpa.hibernate.ddl-auto=update");
+        }
+        command.add("--logging.level.root=WARN");
+    }
+
+    @Benchmark
+    public int startUntilRefreshed() throws Exception {
+        Process process = new ProcessBuilder(command)
+                .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                .redirectError(ProcessBuilder.Redirect.to(new File("target/startup-benchmark.err")))
+                .start();
+        int exitCode = process.waitFor();
+        if (exitCode != 0) {
+            throw new IllegalStateException(variant + " exited with " + exitCode + ", see target/startup-benchmark.err");
+        }
+        return exitCode;
+    }
+}
@@ -0,0 +1,119 @@
+package uz.fido.ProductRestApiIntegrationTest.controller;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+import uz.fido.ProductRestApiIntegrationTest.ProductRestApiIntegrationTestApplication;
+import uz.fido.ProductRestApiIntegrationTest.exception.ProductNotFoundException;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+
+/**
+ * Cost of answering 404. The {@code *Missing} benchmarks send requests for ids that do not exist
+ * through the full MVC stack against the local benchmark database; they only use the HTTP API, so
+ * running them on an older commit gives the before numbers. The {@code throw*} benchmarks isolate
+ * the exception itself, thrown {@code depth} frames below the catch, as it is under Tomcat and
+ * Spring: with a stack trace, as the not-found exception used to be, and stackless, as it is now.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class NotFoundBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Application {
+
+        private ConfigurableApplicationContext context;
+        private MockMvc mockMvc;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            // Rate limiting would turn most of these misses into 429s
+            context = new SpringApplicationBuilder(ProductRestApiIntegrationTestApplication.class)
+                    .profiles("benchmark")
+                    .properties("server.port=0", "product.load-shedding.enabled=false")
+                    .run();
+            mockMvc = MockMvcBuilders.webAppContextSetup((WebApplicationContext) context).build();
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            context.close();
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class Stack {
+
+        @Param({"20", "150"})
+        public int depth;
+    }
+
+    // Far above any id the benchmark database hands out, and different per call so the cache cannot answer
+    private static long missingId() {
+        return Long.MAX_VALUE - ThreadLocalRandom.current().nextInt(1_000_000);
+    }
+
+    @Benchmark
+    public int getMissing(Application application) throws Exception {
+        return application.mockMvc.perform(get("/api/products/" + missingId()))
+                .andReturn().getResponse().getStatus();
+    }
+
+    @Benchmark
+    public int putMissing(Application application) throws Exception {
+        return application.mockMvc.perform(put("/api/products/" + missingId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\":\"Missing\",\"price\":1.0}"))
+                .andReturn().getResponse().getStatus();
+    }
+
+    @Benchmark
+    public int patchMissing(Application application) throws Exception {
+        return application.mockMvc.perform(patch("/api/products/" + missingId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\":\"Missing\"}"))
+                .andReturn().getResponse().getStatus();
+    }
+
+    @Benchmark
+    public int deleteMissing(Application application) throws Exception {
+        return application.mockMvc.perform(delete("/api/products/" + missingId()))
+                .andReturn().getResponse().getStatus();
+    }
+
+    @Benchmark
+    public Object throwWithStackTrace(Stack stack) {
+        try {
+            return throwAt(stack.depth, true);
+        } catch (RuntimeException e) {
+            return e;
+        }
+    }
+
+    @Benchmark
+    public Object throwStackless(Stack stack) {
+        try {
+            return throwAt(stack.depth, false);
+        } catch (RuntimeException e) {
+            return e;
+        }
+    }
+
+    private static Object throwAt(int depth, boolean stackTrace) {
+        if (depth > 0) {
+            return throwAt(depth - 1, stackTrace);
+        }
+        String message = "Product not found with id: " + missingId();
+        throw stackTrace ? new RuntimeException(message) : new ProductNotFoundException(message);
+    }
+}
@@ -0,0 +1,72 @@
+package uz.fido.ProductRestApiIntegrationTest.model;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Jackson round trips of {@link Product}, single and as a list, with compact output (the
+ * default) and indented output ({@code ?pretty=true}).
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ProductJsonBenchmark {
+
+    private static final TypeReference<List<Product>> PRODUCT_LIST = new TypeReference<>() {
+    };
+
+    @Param({"false", "true"})
+    public boolean indentOutput;
+
+    @Param({"100"})
+    public int listSize;
+
+    private ObjectMapper objectMapper;
+    private Product product;
+    private List<Product> products;
+    private byte[] productJson;
+    private byte[] productListJson;
+
+    @Setup
+    public void setUp() throws Exception {
+        objectMapper = new ObjectMapper();
+        objectMapper.configure(SerializationFeature.INDENT_OUTPUT, indentOutput);
+
+        product = new Product(42L, "Benchmark Product", 199.99, 0L);
+        products = new ArrayList<>(listSize);
+        for (long i = 1; i <= listSize; i++) {
+            products.add(new Product(i, "Product " + i, i * 1.5, 0L));
+        }
+        productJson = objectMapper.writeValueAsBytes(product);
+        productListJson = objectMapper.writeValueAsBytes(products);
+    }
+
+    @Benchmark
+    public byte[] serializeProduct() throws Exception {
+        return objectMapper.writeValueAsBytes(product);
+    }
+
+    @Benchmark
+    public byte[] serializeProductList() throws Exception {
+        return objectMapper.writeValueAsBytes(products);
+    }
+
+    @Benchmark
+    public Product deserializeProduct() throws Exception {
+        return objectMapper.readValue(productJson, Product.class);
+    }
+
+    @Benchmark
+    public List<Product> deserializeProductList() throws Exception {
+        return objectMapper.readValue(productListJson, PRODUCT_LIST);
+    }
+}
@@ -0,0 +1,23 @@
+package uz.fido.ProductRestApiIntegrationTest.service;
+
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import uz.fido.ProductRestApiIntegrationTest.ProductRestApiIntegrationTestApplication;
+
+/**
+ * Starts the application without a web server against the local benchmark database
+ * ({@code application-benchmark.properties}).
+ */
+final class BenchmarkApplication {
+
+    private BenchmarkApplication() {
+    }
+
+    static ConfigurableApplicationContext start() {
+        return new SpringApplicationBuilder(ProductRestApiIntegrationTestApplication.class)
+                .web(WebApplicationType.NONE)
+                .profiles("benchmark")
+                .run();
+    }
+}
@@ -0,0 +1,58 @@
+package uz.fido.ProductRestApiIntegrationTest.service;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import uz.fido.ProductRestApiIntegrationTest.model.Product;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link ProductService#createProducts} with varying request sizes; scores are per call,
+ * so divide by {@code batchSize} for per-row cost.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BulkCreateBenchmark {
+
+    @Param({"1", "100", "1000", "10000"})
+    public int batchSize;
+
+    private ConfigurableApplicationContext context;
+    private ProductService productService;
+    private JdbcTemplate jdbcTemplate;
+    private List<Product> batch;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkApplication.start();
+        productService = context.getBean(ProductService.class);
+        jdbcTemplate = context.getBean(JdbcTemplate.class);
+
+        batch = new ArrayList<>(batchSize);
+        for (int i = 0; i < batchSize; i++) {
+            batch.add(new Product("Bulk " + i, 1.0 + i));
+        }
+    }
+
+    @Setup(Level.Iteration)
+    public void truncate() {
+        jdbcTemplate.execute("TRUNCATE products");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<Product> createProducts() {
+        return productService.createProducts(batch);
+    }
+}
@@ -0,0 +1,75 @@
+package uz.fido.ProductRestApiIntegrationTest.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Full-table export: the NDJSON stream of mapped entities ({@link ProductService#streamAllProducts})
+ * against {@link ProductExportService#exportProducts} passing COPY output through. Output is
+ * discarded, so the scores are database and mapping cost only.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ExportBenchmark {
+
+    @Param({"10000", "100000"})
+    public int rows;
+
+    private ConfigurableApplicationContext context;
+    private ProductService productService;
+    private ProductExportService productExportService;
+    private ObjectWriter ndjsonWriter;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkApplication.start();
+        productService = context.getBean(ProductService.class);
+        productExportService = context.getBean(ProductExportService.class);
+        ndjsonWriter = context.getBean(ObjectMapper.class).writer();
+
+        JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+        jdbcTemplate.execute("TRUNCATE products");
+        jdbcTemplate.update("INSERT INTO products (name, price, version)"
+                + " SELECT 'Export ' || i, i * 0.5, 0 FROM generate_series(1, ?) AS i", rows);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public void streamEntitiesAsNdjson() {
+        OutputStream out = OutputStream.nullOutputStream();
+        productService.streamAllProducts(product -> {
+            try {
+                out.write(ndjsonWriter.writeValueAsBytes(product));
+                out.write('\n');
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    @Benchmark
+    public long copyCsv() {
+        return productExportService.exportProducts(OutputStream.nullOutputStream(), ProductExportService.Format.CSV);
+    }
+
+    @Benchmark
+    public long copyBinary() {
+        return productExportService.exportProducts(OutputStream.nullOutputStream(), ProductExportService.Format.BINARY);
+    }
+}
@@ -0,0 +1,49 @@
+package uz.fido.ProductRestApiIntegrationTest.service;
+
+import org.openjdk.jmh.annotations.*;
+import uz.fido.ProductRestApiIntegrationTest.model.Product;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The PATCH body handling shared by {@code partialUpdateProduct} and the bulk update path.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PartialUpdateBenchmark {
+
+    private Map<String, Object> priceOnly;
+    private Map<String, Object> nameAndPrice;
+    private Map<String, Object> withUnknownFields;
+
+    @Setup
+    public void setUp() {
+        priceOnly = Map.of("price", 599.99);
+        nameAndPrice = Map.of("name", "New Camera", "price", 599.99);
+        withUnknownFields = new HashMap<>(nameAndPrice);
+        withUnknownFields.put("id", 7);
+        withUnknownFields.put("description", "ignored");
+        withUnknownFields.put("price", "not a number");
+    }
+
+    @Benchmark
+    public Product priceOnly() {
+        return ProductService.toChanges(priceOnly);
+    }
+
+    @Benchmark
+    public Product nameAndPrice() {
+        return ProductService.toChanges(nameAndPrice);
+    }
+
+    @Benchmark
+    public Product withUnknownFields() {
+        return ProductService.toChanges(withUnknownFields);
+    }
+}
@@ -0,0 +1,82 @@
+package uz.fido.ProductRestApiIntegrationTest.service;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import uz.fido.ProductRestApiIntegrationTest.model.Product;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link ProductService} CRUD against a local PostgreSQL. Lookups pick random ids from a
+ * pre-seeded table, so {@code getProductById} mixes cache hits and misses.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ProductServiceBenchmark {
+
+    @Param({"10000"})
+    public int seededRows;
+
+    private ConfigurableApplicationContext context;
+    private ProductService productService;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkApplication.start();
+        productService = context.getBean(ProductService.class);
+        context.getBean(JdbcTemplate.class).execute("TRUNCATE products RESTART IDENTITY");
+
+        for (int from = 0; from < seededRows; from += 1000) {
+            List<Product> chunk = new ArrayList<>(1000);
+            for (int i = from; i < Math.min(from + 1000, seededRows); i++) {
+                chunk.add(new Product("Seed " + i, 10.0 + i));
+            }
+            productService.createProducts(chunk);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    private long randomId() {
+        // Ids restart at 1 after the truncate in setUp
+        return 1 + ThreadLocalRandom.current().nextInt(seededRows);
+    }
+
+    @Benchmark
+    public Product create() {
+        return productService.createProduct(new Product("Created", 19.99));
+    }
+
+    @Benchmark
+    public Optional<Product> getById() {
+        return productService.getProductById(randomId());
+    }
+
+    @Benchmark
+    public boolean existsById() {
+        return productService.existsById(randomId());
+    }
+
+    @Benchmark
+    public Product update() {
+        return productService.updateProduct(randomId(), new Product("Updated", 29.99));
+    }
+
+    @Benchmark
+    public Product partialUpdate() {
+        return productService.partialUpdateProduct(randomId(), Map.of("price", 39.99));
+    }
+}
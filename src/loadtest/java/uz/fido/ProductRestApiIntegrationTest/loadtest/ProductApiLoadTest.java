@@ -0,0 +1,426 @@
+package uz.fido.ProductRestApiIntegrationTest.loadtest;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Closed-loop load generator for every {@code ProductController} endpoint against a running
+ * instance. Each worker picks an endpoint by weight, sends the request and records its
+ * latency in a per-endpoint HdrHistogram; bodies are read in full, so streamed responses are
+ * timed to their last byte. Run through the {@code loadtest} Maven profile;
+ * settings are system properties:
+ * <ul>
+ *     <li>{@code loadtest.base-url} (default {@code http://localhost:8080})</li>
+ *     <li>{@code loadtest.concurrency} workers (default 32)</li>
+ *     <li>{@code loadtest.warmup} and {@code loadtest.duration} as ISO-8601 or seconds</li>
+ *     <li>{@code loadtest.mix}, e.g. {@code get=60,exists=20,create=5} (unlisted endpoints are skipped)</li>
+ *     <li>{@code loadtest.seed-rows} products created before the run (default 10000)</li>
+ *     <li>{@code loadtest.output} JSON report path (default {@code target/loadtest-result.json})</li>
+ * </ul>
+ * Latencies are measured per request in a closed loop, so they understate queueing delay
+ * when the server falls behind (coordinated omission). Run against an instance with load
+ * shedding off (the default): all workers share one client identity, so per-client limits would
+ * reject most requests. Any 429 or 503 is counted as shed and kept out of the latencies. The
+ * snapshot download answers 404, counted as an error, until the first snapshot has been written.
+ */
+public final class ProductApiLoadTest {
+
+    private static final String DEFAULT_MIX =
+            "get=50,exists=20,page=8,update=5,patch=5,create=5,delete=2,bulk=2,list=1,bulkPatch=2,"
+                    + "search=5,pricePage=3,fields=3,stream=1,import=1,asyncBulk=1,jobStatus=1,"
+                    + "events=2,eventsHead=1,export=1,snapshot=1";
+    private static final Pattern ID_PATTERN = Pattern.compile("\"id\"\\s*:\\s*(\\d+)");
+    private static final Pattern OFFSET_PATTERN = Pattern.compile("\"offset\"\\s*:\\s*(\\d+)");
+    private static final String JSON = "application/json";
+    private static final String NDJSON = "application/x-ndjson";
+    private static final long MAX_TRACKED_NANOS = TimeUnit.MINUTES.toNanos(1);
+
+    enum Endpoint {
+        CREATE("create"),
+        GET("get"),
+        LIST("list"),
+        PAGE("page"),
+        UPDATE("update"),
+        PATCH("patch"),
+        DELETE("delete"),
+        BULK("bulk"),
+        BULK_PATCH("bulkPatch"),
+        EXISTS("exists"),
+        SEARCH("search"),
+        PRICE_PAGE("pricePage"),
+        FIELDS("fields"),
+        STREAM("stream"),
+        IMPORT("import"),
+        ASYNC_BULK("asyncBulk"),
+        JOB_STATUS("jobStatus"),
+        EVENTS("events"),
+        EVENTS_HEAD("eventsHead"),
+        EXPORT("export"),
+        SNAPSHOT("snapshot");
+
+        private final String key;
+
+        Endpoint(String key) {
+            this.key = key;
+        }
+
+        static Endpoint fromKey(String key) {
+            for (Endpoint endpoint : values()) {
+                if (endpoint.key.equals(key)) {
+                    return endpoint;
+                }
+            }
+            throw new IllegalArgumentException("Unknown endpoint in loadtest.mix: " + key);
+        }
+    }
+
+    private static final class Stats {
+        private final Recorder recorder = new Recorder(MAX_TRACKED_NANOS, 3);
+        private final Histogram total = new Histogram(MAX_TRACKED_NANOS, 3);
+        private final AtomicLong errors = new AtomicLong();
+        private final AtomicLong shed = new AtomicLong();
+    }
+
+    private final HttpClient client;
+    private final String baseUrl;
+    private final List<Long> ids = new ArrayList<>();
+    // Latest bulk job, for status polls; event offset a tailing reader has caught up to
+    private final AtomicLong jobId = new AtomicLong();
+    private final AtomicLong eventOffset = new AtomicLong();
+    private final Map<Endpoint, Stats> stats = new EnumMap<>(Endpoint.class);
+    private final Endpoint[] weightedEndpoints;
+    private volatile boolean recording;
+
+    private ProductApiLoadTest(String baseUrl, Map<Endpoint, Integer> mix) {
+        this.baseUrl = baseUrl;
+        this.client = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(5))
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .build();
+
+        List<Endpoint> weighted = new ArrayList<>();
+        mix.forEach((endpoint, weight) -> {
+            stats.put(endpoint, new Stats());
+            for (int i = 0; i < weight; i++) {
+                weighted.add(endpoint);
+            }
+        });
+        this.weightedEndpoints = weighted.toArray(new Endpoint[0]);
+    }
+
+    public static void main(String[] args) throws Exception {
+        String baseUrl = System.getProperty("loadtest.base-url", "http://localhost:8080");
+        int concurrency = Integer.getInteger("loadtest.concurrency", 32);
+        Duration warmup = parseDuration(System.getProperty("loadtest.warmup", "10"));
+        Duration duration = parseDuration(System.getProperty("loadtest.duration", "60"));
+        int seedRows = Integer.getInteger("loadtest.seed-rows", 10_000);
+        Path output = Path.of(System.getProperty("loadtest.output", "target/loadtest-result.json"));
+
+        ProductApiLoadTest loadTest = new ProductApiLoadTest(baseUrl,
+                parseMix(System.getProperty("loadtest.mix", DEFAULT_MIX)));
+        loadTest.seed(seedRows);
+        long measuredNanos = loadTest.run(concurrency, warmup, duration);
+        loadTest.report(concurrency, measuredNanos, output);
+    }
+
+    private void seed(int rows) throws IOException, InterruptedException {
+        for (int from = 0; from < rows; from += 1000) {
+            StringBuilder body = new StringBuilder("[");
+            for (int i = from; i < Math.min(from + 1000, rows); i++) {
+                body.append(i == from ? "" : ",").append(productJson("Seed " + i, 10.0 + i));
+            }
+            HttpResponse<String> response = send(post("/api/products/bulk", body.append(']').toString()));
+            if (response.statusCode() != 201) {
+                throw new IllegalStateException("Seeding failed with HTTP " + response.statusCode());
+            }
+            Matcher matcher = ID_PATTERN.matcher(response.body());
+            while (matcher.find()) {
+                ids.add(Long.parseLong(matcher.group(1)));
+            }
+        }
+        if (ids.isEmpty()) {
+            throw new IllegalStateException("loadtest.seed-rows must be positive");
+        }
+
+        HttpResponse<String> job = send(post("/api/products/bulk?async=true", bulkJson("Seed Job", 10)));
+        Matcher jobMatcher = ID_PATTERN.matcher(job.body());
+        if (job.statusCode() != 202 || !jobMatcher.find()) {
+            throw new IllegalStateException("Submitting a bulk job failed with HTTP " + job.statusCode());
+        }
+        jobId.set(Long.parseLong(jobMatcher.group(1)));
+        eventOffset.set(Long.parseLong(send(get("/api/products/events/head")).body().trim()));
+    }
+
+    private long run(int concurrency, Duration warmup, Duration duration) throws InterruptedException {
+        long warmupEnd = System.nanoTime() + warmup.toNanos();
+        long end = warmupEnd + duration.toNanos();
+
+        try (ExecutorService workers = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < concurrency; i++) {
+                workers.submit(() -> {
+                    while (System.nanoTime() < end) {
+                        execute(weightedEndpoints[ThreadLocalRandom.current().nextInt(weightedEndpoints.length)]);
+                    }
+                });
+            }
+
+            Thread.sleep(warmup.toMillis());
+            // Discard warm-up samples, then measure
+            stats.values().forEach(s -> {
+                s.recorder.reset();
+                s.errors.set(0);
+                s.shed.set(0);
+            });
+            recording = true;
+            long start = System.nanoTime();
+            Thread.sleep(duration.toMillis());
+            recording = false;
+            stats.values().forEach(s -> s.total.add(s.recorder.getIntervalHistogram()));
+            return System.nanoTime() - start;
+        }
+    }
+
+    private void execute(Endpoint endpoint) {
+        try {
+            HttpRequest request = buildRequest(endpoint);
+            long start = System.nanoTime();
+            HttpResponse<String> response = send(request);
+            long latency = System.nanoTime() - start;
+
+            track(endpoint, response);
+            Stats endpointStats = stats.get(endpoint);
+            if (recording) {
+                // A rejection is answered before any work, so its latency says nothing about the endpoint
+                if (response.statusCode() == 429 || response.statusCode() == 503) {
+                    endpointStats.shed.incrementAndGet();
+                    return;
+                }
+                endpointStats.recorder.recordValue(Math.min(latency, MAX_TRACKED_NANOS));
+                if (response.statusCode() >= 400) {
+                    endpointStats.errors.incrementAndGet();
+                }
+            }
+        } catch (IOException e) {
+            if (recording) {
+                stats.get(endpoint).errors.incrementAndGet();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private HttpRequest buildRequest(Endpoint endpoint) throws IOException, InterruptedException {
+        long id = randomId();
+        return switch (endpoint) {
+            case CREATE -> post("/api/products", productJson("Load Product", 19.99));
+            case GET -> get("/api/products/" + id);
+            case LIST -> get("/api/products");
+            case PAGE -> get("/api/products?limit=100&after=" + Math.max(0, id - 1));
+            case UPDATE -> request("/api/products/" + id, "PUT", productJson("Updated Product", 29.99));
+            case PATCH -> request("/api/products/" + id, "PATCH", "{\"price\":" + randomPrice() + "}");
+            // Delete a product created just for it, so the seeded id pool never shrinks
+            case DELETE -> request("/api/products/" + createThrowaway(), "DELETE", null);
+            case BULK -> post("/api/products/bulk", bulkJson("Bulk", 100));
+            case BULK_PATCH -> {
+                StringBuilder body = new StringBuilder("[");
+                for (int i = 0; i < 100; i++) {
+                    body.append(i == 0 ? "" : ",")
+                            .append("{\"id\":").append(randomId()).append(",\"price\":").append(randomPrice()).append('}');
+                }
+                yield request("/api/products/bulk", "PATCH", body.append(']').toString());
+            }
+            case EXISTS -> get("/api/products/exists/" + id);
+            case SEARCH -> get("/api/products/search?q=seed%20" + ThreadLocalRandom.current().nextInt(1000)
+                    + "&prefix=" + ThreadLocalRandom.current().nextBoolean() + "&limit=20");
+            case PRICE_PAGE -> {
+                double minPrice = randomPrice();
+                yield get("/api/products?limit=100&sort=price&minPrice=" + minPrice + "&maxPrice=" + (minPrice + 100));
+            }
+            case FIELDS -> get("/api/products?limit=100&fields=name&after=" + Math.max(0, id - 1));
+            case STREAM -> request("/api/products", "GET", null, null, NDJSON);
+            case IMPORT -> {
+                StringBuilder csv = new StringBuilder("name,price\n");
+                for (int i = 0; i < 100; i++) {
+                    csv.append("Import ").append(i).append(',').append(1.0 + i).append('\n');
+                }
+                yield request("/api/products/import", "POST", csv.toString(), "text/csv", JSON);
+            }
+            case ASYNC_BULK -> post("/api/products/bulk?async=true", bulkJson("Async Bulk", 100));
+            case JOB_STATUS -> get("/api/products/bulk/jobs/" + jobId.get());
+            // The backlog since the last events response, as a reader tailing the stream would fetch it
+            case EVENTS -> request("/api/products/events?follow=false&after=" + eventOffset.get(), "GET", null, null, NDJSON);
+            case EVENTS_HEAD -> get("/api/products/events/head");
+            case EXPORT -> request("/api/products/export", "GET", null, null, "text/csv");
+            case SNAPSHOT -> request("/api/products/export/snapshot", "GET", null, null, "*/*");
+        };
+    }
+
+    private void track(Endpoint endpoint, HttpResponse<String> response) {
+        if (response.statusCode() >= 300) {
+            return;
+        }
+        Pattern pattern = switch (endpoint) {
+            case ASYNC_BULK -> ID_PATTERN;
+            case EVENTS -> OFFSET_PATTERN;
+            default -> null;
+        };
+        if (pattern == null) {
+            return;
+        }
+        long latest = -1;
+        Matcher matcher = pattern.matcher(response.body());
+        while (matcher.find()) {
+            latest = Long.parseLong(matcher.group(1));
+        }
+        if (latest >= 0) {
+            (endpoint == Endpoint.ASYNC_BULK ? jobId : eventOffset).accumulateAndGet(latest, Math::max);
+        }
+    }
+
+    private long createThrowaway() throws IOException, InterruptedException {
+        HttpResponse<String> response = send(post("/api/products", productJson("Doomed Product", 9.99)));
+        Matcher matcher = ID_PATTERN.matcher(response.body());
+        return matcher.find() ? Long.parseLong(matcher.group(1)) : 0L;
+    }
+
+    private void report(int concurrency, long measuredNanos, Path output) throws IOException {
+        double seconds = measuredNanos / 1e9;
+        StringBuilder json = new StringBuilder("{\"concurrency\":").append(concurrency)
+                .append(",\"durationSeconds\":").append(format(seconds))
+                .append(",\"endpoints\":{");
+
+        System.out.printf(Locale.ROOT, "%-10s %10s %10s %8s %8s %10s %10s %10s %10s %10s%n",
+                "endpoint", "requests", "req/s", "errors", "shed", "p50 ms", "p95 ms", "p99 ms", "p99.9 ms", "max ms");
+        boolean first = true;
+        for (Map.Entry<Endpoint, Stats> entry : stats.entrySet()) {
+            Histogram histogram = entry.getValue().total;
+            long count = histogram.getTotalCount();
+            long errors = entry.getValue().errors.get();
+            long shed = entry.getValue().shed.get();
+            double throughput = count / seconds;
+            double errorRate = count == 0 ? 0 : (double) errors / count;
+
+            System.out.printf(Locale.ROOT, "%-10s %10d %10.1f %8d %8d %10.2f %10.2f %10.2f %10.2f %10.2f%n",
+                    entry.getKey().key, count, throughput, errors, shed,
+                    millis(histogram, 50), millis(histogram, 95), millis(histogram, 99), millis(histogram, 99.9),
+                    histogram.getMaxValue() / 1e6);
+
+            json.append(first ? "" : ",").append('"').append(entry.getKey().key).append("\":{")
+                    .append("\"requests\":").append(count)
+                    .append(",\"throughputPerSecond\":").append(format(throughput))
+                    .append(",\"errors\":").append(errors)
+                    .append(",\"errorRate\":").append(format(errorRate))
+                    .append(",\"shed\":").append(shed)
+                    .append(",\"p50Ms\":").append(format(millis(histogram, 50)))
+                    .append(",\"p95Ms\":").append(format(millis(histogram, 95)))
+                    .append(",\"p99Ms\":").append(format(millis(histogram, 99)))
+                    .append(",\"p999Ms\":").append(format(millis(histogram, 99.9)))
+                    .append(",\"maxMs\":").append(format(histogram.getMaxValue() / 1e6))
+                    .append('}');
+            first = false;
+        }
+        json.append("}}");
+
+        if (output.getParent() != null) {
+            Files.createDirectories(output.getParent());
+        }
+        Files.writeString(output, json);
+        System.out.println("Report written to " + output.toAbsolutePath());
+    }
+
+    private long randomId() {
+        return ids.get(ThreadLocalRandom.current().nextInt(ids.size()));
+    }
+
+    private static double randomPrice() {
+        return Math.round(ThreadLocalRandom.current().nextDouble(1, 1000) * 100) / 100.0;
+    }
+
+    private static double millis(Histogram histogram, double percentile) {
+        return histogram.getValueAtPercentile(percentile) / 1e6;
+    }
+
+    private static String format(double value) {
+        return String.format(Locale.ROOT, "%.3f", value);
+    }
+
+    private static String productJson(String name, double price) {
+        return "{\"name\":\"" + name + "\",\"price\":" + price + "}";
+    }
+
+    private static String bulkJson(String namePrefix, int count) {
+        StringBuilder body = new StringBuilder("[");
+        for (int i = 0; i < count; i++) {
+            body.append(i == 0 ? "" : ",").append(productJson(namePrefix + " " + i, 1.0 + i));
+        }
+        return body.append(']').toString();
+    }
+
+    private HttpRequest get(String path) {
+        return request(path, "GET", null);
+    }
+
+    private HttpRequest post(String path, String body) {
+        return request(path, "POST", body);
+    }
+
+    private HttpRequest request(String path, String method, String body) {
+        return request(path, method, body, JSON, JSON);
+    }
+
+    private HttpRequest request(String path, String method, String body, String contentType, String accept) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .timeout(Duration.ofSeconds(30))
+                .header("Accept", accept);
+        if (body == null) {
+            return builder.method(method, HttpRequest.BodyPublishers.noBody()).build();
+        }
+        return builder.header("Content-Type", contentType)
+                .method(method, HttpRequest.BodyPublishers.ofString(body))
+                .build();
+    }
+
+    private HttpResponse<String> send(HttpRequest request) throws IOException, InterruptedException {
+        return client.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    private static Map<Endpoint, Integer> parseMix(String mix) {
+        Map<Endpoint, Integer> weights = new EnumMap<>(Endpoint.class);
+        for (String entry : mix.split(",")) {
+            String[] parts = entry.trim().split("=");
+            int weight = Integer.parseInt(parts[1].trim());
+            if (weight > 0) {
+                weights.put(Endpoint.fromKey(parts[0].trim()), weight);
+            }
+        }
+        if (weights.isEmpty()) {
+            throw new IllegalArgumentException("loadtest.mix selects no endpoints");
+        }
+        return weights;
+    }
+
+    private static Duration parseDuration(String value) {
+        return value.startsWith("P") ? Duration.parse(value) : Duration.ofSeconds(Long.parseLong(value));
+    }
+}
@@ -0,0 +1,130 @@
+package uz.fido.ProductRestApiIntegrationTest.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import uz.fido.ProductRestApiIntegrationTest.model.Product;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Bounded read-through cache of products by id (Caffeine, W-TinyLFU eviction).
+ * Missing ids are cached as {@link Optional#empty()} with a shorter TTL. Entries are
+ * stored and handed out as copies so callers never share a mutable instance.
+ */
+@Component
+@Profile("!reactive")
+public class ProductCache {
+
+    private final Cache<Long, Optional<Product>> cache;
+    // Bumped on every invalidation so a load that raced with a write is not cached
+    private final AtomicLong invalidations = new AtomicLong();
+
+    @Autowired
+    public ProductCache(@Value("${product.cache.maximum-size:10000}") long maximumSize,
+                        @Value("${product.cache.ttl:10m}") Duration ttl,
+                        @Value("${product.cache.negative-ttl:30s}") Duration negativeTtl,
+                        MeterRegistry meterRegistry) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfter(new PresenceBasedExpiry(ttl.toNanos(), negativeTtl.toNanos()))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "products");
+    }
+
+    /**
+     * The loader runs outside any cache lock: a blocking JDBC call inside
+     * {@code ConcurrentHashMap.compute} would pin the carrier of a virtual thread.
+     */
+    public Optional<Product> get(Long id, Function<Long, Optional<Product>> loader) {
+        Optional<Product> cached = cache.getIfPresent(id);
+        if (cached != null) {
+            return cached.map(ProductCache::copy);
+        }
+
+        long generation = invalidations.get();
+        Optional<Product> loaded = loader.apply(id).map(ProductCache::copy);
+        cache.asMap().compute(id, (key, existing) ->
+                existing != null || invalidations.get() != generation ? existing : loaded);
+        return loaded.map(ProductCache::copy);
+    }
+
+    /**
+     * Drops the entries now and again once the surrounding transaction completes, so a
+     * concurrent read cannot re-populate them with the pre-commit rows.
+     */
+    public void invalidateAllAfterCommit(Collection<Long> ids) {
+        Runnable invalidate = () -> {
+            invalidations.incrementAndGet();
+            cache.invalidateAll(ids);
+        };
+        invalidate.run();
+        afterCompletion(invalidate);
+    }
+
+    /**
+     * Forgets every cached miss; used when rows are inserted without knowing their ids up front.
+     */
+    public void invalidateMissingAfterCommit() {
+        Runnable removeMissing = () -> {
+            invalidations.incrementAndGet();
+            cache.asMap().values().removeIf(Optional::isEmpty);
+        };
+        removeMissing.run();
+        afterCompletion(removeMissing);
+    }
+
+    private static void afterCompletion(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    action.run();
+                }
+            });
+        }
+    }
+
+    private static Product copy(Product product) {
+        return new Product(product.getId(), product.getName(), product.getPrice(), product.getVersion());
+    }
+
+    private static final class PresenceBasedExpiry implements Expiry<Long, Optional<Product>> {
+
+        private final long ttlNanos;
+        private final long negativeTtlNanos;
+
+        private PresenceBasedExpiry(long ttlNanos, long negativeTtlNanos) {
+            this.ttlNanos = ttlNanos;
+            this.negativeTtlNanos = negativeTtlNanos;
+        }
+
+        @Override
+        public long expireAfterCreate(Long key, Optional<Product> value, long currentTime) {
+            return value.isPresent() ? ttlNanos : negativeTtlNanos;
+        }
+
+        @Override
+        public long expireAfterUpdate(Long key, Optional<Product> value, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, value, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(Long key, Optional<Product> value, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
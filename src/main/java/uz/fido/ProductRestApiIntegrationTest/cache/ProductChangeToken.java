@@ -0,0 +1,104 @@
+package uz.fido.ProductRestApiIntegrationTest.cache;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Catalog-wide change token backing the ETags of list responses. It is the current value of
+ * {@code product_change_seq} (db/migration/V4), so reading it is a single-row lookup instead of
+ * a scan of {@code products}, and every instance sharing the database sees the same value.
+ */
+@Component
+@Profile("!reactive")
+public class ProductChangeToken {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TaskScheduler taskScheduler;
+    // Zero without read replicas; otherwise the longest a list read can trail the last write
+    private final Duration replicaDelay;
+    private final AtomicBoolean delayedAdvanceScheduled = new AtomicBoolean();
+    private volatile Instant lastWrite = Instant.EPOCH;
+
+    @Autowired
+    public ProductChangeToken(JdbcTemplate jdbcTemplate,
+                              TaskScheduler taskScheduler,
+                              @Value("${product.datasource.replicas.urls:}") String replicaUrls,
+                              @Value("${product.datasource.replicas.max-lag:5s}") Duration replicaMaxLag,
+                              @Value("${product.datasource.replicas.lag-check-interval:5s}") Duration replicaLagCheckInterval) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.taskScheduler = taskScheduler;
+        this.replicaDelay = replicaUrls.isBlank() ? Duration.ZERO : replicaMaxLag.plus(replicaLagCheckInterval);
+    }
+
+    public long current() {
+        // A fresh sequence reports last_value 1 before its first nextval, so is_called tells the two apart
+        Long value = jdbcTemplate.queryForObject(
+                "SELECT CASE WHEN is_called THEN last_value ELSE 0 END FROM product_change_seq", Long.class);
+        return value == null ? 0L : value;
+    }
+
+    /**
+     * Advances the token now and again once the surrounding transaction completes, so a list
+     * read between the write and its commit cannot keep the pre-commit token. With read
+     * replicas it advances once more after the allowed replica lag, since a list read from a
+     * lagging replica may have been tagged with the post-commit token.
+     */
+    public void advanceAfterCommit() {
+        advance();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    // nextval is not transactional, so it sticks even on the finished transaction's connection
+                    advance();
+                    scheduleDelayedAdvance();
+                }
+            });
+        } else {
+            scheduleDelayedAdvance();
+        }
+    }
+
+    private void advance() {
+        jdbcTemplate.queryForObject("SELECT nextval('product_change_seq')", Long.class);
+    }
+
+    // One pending task covers a burst of writes; it fires once the delay has passed since the last of them
+    private void scheduleDelayedAdvance() {
+        if (replicaDelay.isZero()) {
+            return;
+        }
+        lastWrite = Instant.now();
+        if (delayedAdvanceScheduled.compareAndSet(false, true)) {
+            taskScheduler.schedule(this::delayedAdvance, lastWrite.plus(replicaDelay));
+        }
+    }
+
+    private void delayedAdvance() {
+        Instant due = lastWrite.plus(replicaDelay);
+        if (Instant.now().isBefore(due)) {
+            taskScheduler.schedule(this::delayedAdvance, due);
+            return;
+        }
+        delayedAdvanceScheduled.set(false);
+        try {
+            advance();
+        } finally {
+            // A write that saw the flag still set just before it was cleared is picked up here
+            if (lastWrite.plus(replicaDelay).isAfter(Instant.now())
+                    && delayedAdvanceScheduled.compareAndSet(false, true)) {
+                taskScheduler.schedule(this::delayedAdvance, lastWrite.plus(replicaDelay));
+            }
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package uz.fido.ProductRestApiIntegrationTest.config;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Concurrency bulkhead whose limit follows observed latency (AIMD): every request slower than
+ * the target, or failing, cuts the limit by {@value #BACKOFF_RATIO}, down to the minimum; every
+ * fast request while at least half the limit is in use raises it by one, up to the maximum.
+ * So when the connection pool saturates and latency climbs, fewer requests are let in, and
+ * those are served quickly instead of all of them queueing.
+ */
+final class AdaptiveConcurrencyLimit {
+
+    private static final double BACKOFF_RATIO = 0.9;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final long targetLatencyNanos;
+    private final AtomicInteger limit;
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    AdaptiveConcurrencyLimit(int minLimit, int maxLimit, long targetLatencyNanos) {
+        this.maxLimit = Math.max(1, maxLimit);
+        this.minLimit = Math.max(1, Math.min(minLimit, this.maxLimit));
+        this.targetLatencyNanos = targetLatencyNanos;
+        this.limit = new AtomicInteger(this.maxLimit);
+    }
+
+    boolean tryAcquire() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= limit.get()) {
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    void release(long latencyNanos, boolean failed) {
+        int inFlightBefore = inFlight.getAndDecrement();
+        if (failed || latencyNanos > targetLatencyNanos) {
+            limit.updateAndGet(current -> Math.max(minLimit, (int) (current * BACKOFF_RATIO)));
+        } else if (inFlightBefore * 2 >= limit.get()) {
+            limit.updateAndGet(current -> Math.min(maxLimit, current + 1));
+        }
+    }
+
+    int limit() {
+        return limit.get();
+    }
+
+    int inFlight() {
+        return inFlight.get();
+    }
+}
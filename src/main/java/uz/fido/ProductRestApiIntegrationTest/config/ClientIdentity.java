@@ -0,0 +1,50 @@
+package uz.fido.ProductRestApiIntegrationTest.config;
+
+import jakarta.servlet.http.HttpServletRequest;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.Principal;
+import java.util.HexFormat;
+
+/**
+ * Tells clients apart for per-client state: the authenticated user, else the
+ * {@code product.client-id-header} when one is configured, else the remote address. The header
+ * is only trustworthy behind a proxy that sets it and strips it from incoming requests, so it is
+ * ignored unless configured.
+ */
+final class ClientIdentity {
+
+    private final String trustedHeader;
+
+    ClientIdentity(String trustedHeader) {
+        this.trustedHeader = trustedHeader == null || trustedHeader.isBlank() ? null : trustedHeader.trim();
+    }
+
+    // Prefixed by source, so a header value can never collide with a user name or an address
+    String of(HttpServletRequest request) {
+        Principal principal = request.getUserPrincipal();
+        if (principal != null) {
+            return "user:" + principal.getName();
+        }
+        if (trustedHeader != null) {
+            String client = request.getHeader(trustedHeader);
+            if (client != null && !client.isBlank()) {
+                return "client:" + sha256Hex(client.trim());
+            }
+        }
+        return "addr:" + request.getRemoteAddr();
+    }
+
+    // Bounds the length of a header value without merging ids that share a prefix, which would
+    // share rate-limit buckets and idempotency keys
+    private static String sha256Hex(String value) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(value.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
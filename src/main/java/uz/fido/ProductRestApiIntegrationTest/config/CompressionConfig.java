@@ -0,0 +1,26 @@
+package uz.fido.ProductRestApiIntegrationTest.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.util.unit.DataSize;
+
+/**
+ * Compressed uploads for the bulk endpoints. Responses are compressed by the server itself
+ * ({@code server.compression.*}).
+ */
+@Configuration(proxyBeanMethods = false)
+@Profile("!reactive")
+public class CompressionConfig {
+
+    @Bean
+    FilterRegistrationBean<RequestDecompressionFilter> requestDecompressionFilter(
+            @Value("${product.bulk.max-decompressed-size:256MB}") DataSize maxDecompressedSize) {
+        FilterRegistrationBean<RequestDecompressionFilter> registration =
+                new FilterRegistrationBean<>(new RequestDecompressionFilter(maxDecompressedSize.toBytes()));
+        registration.addUrlPatterns("/api/products/bulk", "/api/products/import");
+        return registration;
+    }
+}
@@ -0,0 +1,29 @@
+package uz.fido.ProductRestApiIntegrationTest.config;
+
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.Ordered;
+import org.springframework.core.env.Environment;
+import uz.fido.ProductRestApiIntegrationTest.service.IdempotencyService;
+
+/**
+ * {@code Idempotency-Key} support for the create endpoints ({@code product.idempotency.*}).
+ */
+@Configuration(proxyBeanMethods = false)
+@Profile("!reactive")
+public class IdempotencyConfig {
+
+    @Bean
+    FilterRegistrationBean<IdempotencyFilter> idempotencyFilter(IdempotencyService idempotencyService,
+                                                                Environment environment) {
+        ClientIdentity clientIdentity = new ClientIdentity(environment.getProperty("product.client-id-header"));
+        FilterRegistrationBean<IdempotencyFilter> registration =
+                new FilterRegistrationBean<>(new IdempotencyFilter(idempotencyService, clientIdentity));
+        registration.addUrlPatterns("/api/products", "/api/products/bulk");
+        // Ahead of request decompression, so the fingerprint covers the body as sent
+        registration.setOrder(Ordered.LOWEST_PRECEDENCE - 1);
+        return registration;
+    }
+}
@@ -0,0 +1,237 @@
+package uz.fido.ProductRestApiIntegrationTest.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+import uz.fido.ProductRestApiIntegrationTest.repository.IdempotencyKeyRepository;
+import uz.fido.ProductRestApiIntegrationTest.service.IdempotencyService;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Answers retries of a {@code POST} sent with an {@code Idempotency-Key} with the stored response
+ * of the first attempt instead of running it again. The key is bound to a hash of the method,
+ * URI and body as sent: reusing it for a different request gets 422, and a retry while the first
+ * attempt is still running gets 409. Only 2xx responses are stored; after any other outcome the
+ * key is released, so a retry runs again. Keys are per client ({@link ClientIdentity}): the same
+ * key sent by two clients names two requests.
+ */
+public class IdempotencyFilter extends OncePerRequestFilter {
+
+    public static final String IDEMPOTENCY_KEY = "Idempotency-Key";
+    private static final String REPLAYED = "Idempotent-Replayed";
+    private static final int MAX_KEY_LENGTH = 255;
+    private static final int DRAIN_BUFFER_BYTES = 8 * 1024;
+
+    private final IdempotencyService idempotencyService;
+    private final ClientIdentity clientIdentity;
+
+    IdempotencyFilter(IdempotencyService idempotencyService, ClientIdentity clientIdentity) {
+        this.idempotencyService = idempotencyService;
+        this.clientIdentity = clientIdentity;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !"POST".equals(request.getMethod()) || request.getHeader(IDEMPOTENCY_KEY) == null;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        String clientKey = request.getHeader(IDEMPOTENCY_KEY).trim();
+        if (clientKey.isEmpty() || clientKey.length() > MAX_KEY_LENGTH) {
+            response.sendError(HttpServletResponse.SC_BAD_REQUEST);
+            return;
+        }
+        String key = scopedKey(clientIdentity.of(request), clientKey);
+
+        Optional<IdempotencyKeyRepository.StoredResponse> completed = idempotencyService.findCompleted(key);
+        if (completed.isEmpty()) {
+            Optional<UUID> claimToken = idempotencyService.claim(key);
+            if (claimToken.isPresent()) {
+                execute(key, claimToken.get(), request, response, filterChain);
+                return;
+            }
+            // Another request holds the key; it may have completed in the meantime
+            completed = idempotencyService.findCompleted(key);
+            if (completed.isEmpty()) {
+                response.setHeader(HttpHeaders.RETRY_AFTER, "1");
+                response.sendError(HttpServletResponse.SC_CONFLICT);
+                return;
+            }
+        }
+        replay(completed.get(), request, response);
+    }
+
+    private void execute(String key, UUID claimToken, HttpServletRequest request, HttpServletResponse response,
+                         FilterChain filterChain) throws ServletException, IOException {
+        DigestingRequest digestingRequest = new DigestingRequest(request);
+        ContentCachingResponseWrapper cachingResponse = new ContentCachingResponseWrapper(response);
+        boolean stored = false;
+        try {
+            filterChain.doFilter(digestingRequest, cachingResponse);
+            int status = cachingResponse.getStatus();
+            if (status >= 200 && status < 300 && !request.isAsyncStarted()) {
+                idempotencyService.complete(key, claimToken, digestingRequest.finish(), status,
+                        cachingResponse.getContentType(), cachingResponse.getHeader(HttpHeaders.LOCATION),
+                        cachingResponse.getContentAsByteArray());
+                stored = true;
+            }
+        } finally {
+            if (!stored) {
+                idempotencyService.release(key, claimToken);
+            }
+            cachingResponse.copyBodyToResponse();
+        }
+    }
+
+    // Hashed, so the stored key stays within the column however long the client identity is
+    private static String scopedKey(String client, String key) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(client.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            return HexFormat.of().formatHex(digest.digest(key.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void replay(IdempotencyKeyRepository.StoredResponse stored, HttpServletRequest request,
+                               HttpServletResponse response) throws IOException {
+        if (!MessageDigest.isEqual(stored.fingerprint(), new DigestingRequest(request).finish())) {
+            response.sendError(HttpStatus.UNPROCESSABLE_ENTITY.value());
+            return;
+        }
+        response.setStatus(stored.status());
+        if (stored.contentType() != null) {
+            response.setContentType(stored.contentType());
+        }
+        if (stored.location() != null) {
+            response.setHeader(HttpHeaders.LOCATION, stored.location());
+        }
+        response.setHeader(REPLAYED, "true");
+        response.setContentLength(stored.body().length);
+        response.getOutputStream().write(stored.body());
+    }
+
+    /**
+     * Hashes the request line and the body while the handler reads it; {@link #finish} reads
+     * whatever the handler left and returns the hash.
+     */
+    private static final class DigestingRequest extends HttpServletRequestWrapper {
+
+        private final MessageDigest digest;
+        private ServletInputStream inputStream;
+        private BufferedReader reader;
+
+        private DigestingRequest(HttpServletRequest request) {
+            super(request);
+            try {
+                this.digest = MessageDigest.getInstance("SHA-256");
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException(e);
+            }
+            String query = request.getQueryString();
+            String requestLine = request.getMethod() + " " + request.getRequestURI() + (query == null ? "" : "?" + query);
+            digest.update(requestLine.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) '\n');
+        }
+
+        @Override
+        public ServletInputStream getInputStream() throws IOException {
+            if (reader != null) {
+                throw new IllegalStateException("getReader() has already been called for this request");
+            }
+            return digestingStream();
+        }
+
+        @Override
+        public BufferedReader getReader() throws IOException {
+            if (reader == null) {
+                String characterEncoding = getCharacterEncoding();
+                Charset charset = characterEncoding != null ? Charset.forName(characterEncoding) : StandardCharsets.UTF_8;
+                reader = new BufferedReader(new InputStreamReader(digestingStream(), charset));
+            }
+            return reader;
+        }
+
+        private byte[] finish() throws IOException {
+            ServletInputStream in = digestingStream();
+            byte[] buffer = new byte[DRAIN_BUFFER_BYTES];
+            while (in.read(buffer) >= 0) {
+                // Only the digest needs the rest of the body
+            }
+            return digest.digest();
+        }
+
+        private ServletInputStream digestingStream() throws IOException {
+            if (inputStream == null) {
+                inputStream = new DigestingServletInputStream(super.getInputStream(), digest);
+            }
+            return inputStream;
+        }
+    }
+
+    private static final class DigestingServletInputStream extends ServletInputStream {
+
+        private final ServletInputStream delegate;
+        private final MessageDigest digest;
+
+        private DigestingServletInputStream(ServletInputStream delegate, MessageDigest digest) {
+            this.delegate = delegate;
+            this.digest = digest;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int value = delegate.read();
+            if (value >= 0) {
+                digest.update((byte) value);
+            }
+            return value;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int read = delegate.read(buffer, offset, length);
+            if (read > 0) {
+                digest.update(buffer, offset, read);
+            }
+            return read;
+        }
+
+        @Override
+        public boolean isFinished() {
+            return delegate.isFinished();
+        }
+
+        @Override
+        public boolean isReady() {
+            return delegate.isReady();
+        }
+
+        @Override
+        public void setReadListener(ReadListener readListener) {
+            throw new UnsupportedOperationException("Non-blocking reads are not supported for idempotent requests");
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package uz.fido.ProductRestApiIntegrationTest.config;
+
+import org.springframework.boot.LazyInitializationExcludeFilter;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.orm.jpa.AbstractEntityManagerFactoryBean;
+import uz.fido.ProductRestApiIntegrationTest.controller.ProductController;
+
+import javax.sql.DataSource;
+
+/**
+ * With {@code spring.main.lazy-initialization=true} (the prod profile) beans are created on
+ * first use. The connection pool, JPA and {@link ProductController} with everything it needs
+ * stay eager, so the first request after a scale-out does not pay for building them. Beans
+ * with {@code @Scheduled} methods are kept eager by Spring Boot itself.
+ */
+@Configuration(proxyBeanMethods = false)
+public class LazyInitializationConfig {
+
+    @Bean
+    static LazyInitializationExcludeFilter productRequestPathExcludeFilter() {
+        return (beanName, beanDefinition, beanType) -> DataSource.class.isAssignableFrom(beanType)
+                || AbstractEntityManagerFactoryBean.class.isAssignableFrom(beanType)
+                || ProductController.class.isAssignableFrom(beanType);
+    }
+}
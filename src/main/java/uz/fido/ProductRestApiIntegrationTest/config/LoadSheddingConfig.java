@@ -0,0 +1,74 @@
+package uz.fido.ProductRestApiIntegrationTest.config;
+
+import com.github.benmanes.caffeine.cache.Ticker;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.env.Environment;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * Rate limiting and load shedding for the product API ({@code product.load-shedding.*}).
+ * {@code default} applies to every endpoint; {@code endpoints.<method-name>} overrides single
+ * values for one {@code ProductController} method, named in kebab case. Off unless
+ * {@code product.load-shedding.enabled} is set. Buckets read time from a {@link Ticker} bean
+ * when there is one (tests pin it), else from the system ticker.
+ */
+@Configuration(proxyBeanMethods = false)
+@Profile("!reactive")
+@ConditionalOnProperty(name = "product.load-shedding.enabled", havingValue = "true")
+public class LoadSheddingConfig implements WebMvcConfigurer {
+
+    /**
+     * Limits of one endpoint; null values fall back to the defaults. {@code rate} is requests per
+     * second per client (0 disables it), {@code burst} the bucket size, and a
+     * {@code max-concurrency} of 0 disables the bulkhead.
+     */
+    public record Limits(Double rate,
+                         Double burst,
+                         Integer maxConcurrency,
+                         Integer minConcurrency,
+                         Duration targetLatency) {
+
+        Limits overriddenBy(Limits override) {
+            if (override == null) {
+                return this;
+            }
+            return new Limits(
+                    override.rate != null ? override.rate : rate,
+                    override.burst != null ? override.burst : burst,
+                    override.maxConcurrency != null ? override.maxConcurrency : maxConcurrency,
+                    override.minConcurrency != null ? override.minConcurrency : minConcurrency,
+                    override.targetLatency != null ? override.targetLatency : targetLatency);
+        }
+    }
+
+    private final LoadSheddingInterceptor interceptor;
+
+    @Autowired
+    public LoadSheddingConfig(Environment environment, MeterRegistry meterRegistry, ObjectProvider<Ticker> ticker) {
+        Binder binder = Binder.get(environment);
+        Limits defaults = binder.bind("product.load-shedding.default", Limits.class)
+                .orElse(new Limits(null, null, null, null, null));
+        Map<String, Limits> overrides = binder.bind("product.load-shedding.endpoints",
+                        Bindable.mapOf(String.class, Limits.class))
+                .orElse(Map.of());
+        ClientIdentity clientIdentity = new ClientIdentity(environment.getProperty("product.client-id-header"));
+        this.interceptor = new LoadSheddingInterceptor(defaults, overrides, clientIdentity,
+                ticker.getIfAvailable(Ticker::systemTicker), meterRegistry);
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(interceptor).addPathPatterns("/api/products", "/api/products/**");
+    }
+}
@@ -0,0 +1,206 @@
+package uz.fido.ProductRestApiIntegrationTest.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Ticker;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Admission control per controller method. A token bucket per endpoint and client answers
+ * 429 once the client exceeds its rate; an {@link AdaptiveConcurrencyLimit} per endpoint
+ * answers 503 once the endpoint has as many requests in flight as its current limit. Both
+ * reject before the handler runs, so a shed request never touches the connection pool.
+ */
+final class LoadSheddingInterceptor implements AsyncHandlerInterceptor {
+
+    private static final String ADMISSION_ATTRIBUTE = LoadSheddingInterceptor.class.getName() + ".admission";
+
+    private final LoadSheddingConfig.Limits defaults;
+    private final Map<String, LoadSheddingConfig.Limits> overrides;
+    private final ClientIdentity clientIdentity;
+    private final Ticker ticker;
+    private final MeterRegistry meterRegistry;
+    private final Map<Method, Endpoint> endpoints = new ConcurrentHashMap<>();
+    // Idle clients' buckets expire, so the number of distinct client keys cannot grow memory without bound
+    private final Cache<String, TokenBucket> buckets;
+
+    LoadSheddingInterceptor(LoadSheddingConfig.Limits defaults, Map<String, LoadSheddingConfig.Limits> overrides,
+                            ClientIdentity clientIdentity, Ticker ticker, MeterRegistry meterRegistry) {
+        this.defaults = defaults;
+        this.overrides = overrides;
+        this.clientIdentity = clientIdentity;
+        this.ticker = ticker;
+        this.meterRegistry = meterRegistry;
+        this.buckets = Caffeine.newBuilder()
+                .maximumSize(100_000)
+                .expireAfterAccess(Duration.ofMinutes(10))
+                .ticker(ticker)
+                .build();
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        // Async and error re-dispatches belong to a request that was already admitted
+        if (request.getDispatcherType() != DispatcherType.REQUEST || !(handler instanceof HandlerMethod)) {
+            return true;
+        }
+        Endpoint endpoint = endpoints.computeIfAbsent(((HandlerMethod) handler).getMethod(), this::createEndpoint);
+
+        if (endpoint.ratePerSecond > 0) {
+            TokenBucket bucket = buckets.get(endpoint.name + " " + clientIdentity.of(request),
+                    key -> new TokenBucket(endpoint.ratePerSecond, endpoint.burst, ticker));
+            long waitNanos = bucket.tryAcquire();
+            if (waitNanos > 0) {
+                endpoint.rateLimited.increment();
+                long retryAfterSeconds = Math.max(1L, TimeUnit.NANOSECONDS.toSeconds(waitNanos - 1) + 1);
+                return reject(response, HttpStatus.TOO_MANY_REQUESTS, retryAfterSeconds);
+            }
+        }
+
+        if (endpoint.limit != null) {
+            if (!endpoint.limit.tryAcquire()) {
+                endpoint.overloaded.increment();
+                return reject(response, HttpStatus.SERVICE_UNAVAILABLE, 1L);
+            }
+            request.setAttribute(ADMISSION_ATTRIBUTE, new Admission(endpoint.limit));
+        }
+        return true;
+    }
+
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        Admission admission = (Admission) request.getAttribute(ADMISSION_ATTRIBUTE);
+        if (admission == null || !request.isAsyncStarted()) {
+            return;
+        }
+        // Streaming responses hold their permit until the async request is over, however it ends
+        request.getAsyncContext().addListener(new AsyncListener() {
+            @Override
+            public void onComplete(AsyncEvent event) {
+                admission.release(response.getStatus() >= 500);
+            }
+
+            @Override
+            public void onTimeout(AsyncEvent event) {
+            }
+
+            @Override
+            public void onError(AsyncEvent event) {
+                admission.release(true);
+            }
+
+            @Override
+            public void onStartAsync(AsyncEvent event) {
+            }
+        });
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        Admission admission = (Admission) request.getAttribute(ADMISSION_ATTRIBUTE);
+        if (admission != null) {
+            admission.release(ex != null || response.getStatus() >= 500);
+        }
+    }
+
+    private Endpoint createEndpoint(Method method) {
+        String name = toKebabCase(method.getName());
+        LoadSheddingConfig.Limits limits = defaults.overriddenBy(overrides.get(name));
+        return new Endpoint(name, limits, meterRegistry);
+    }
+
+    // Plain status without a body or an error dispatch, so rejecting stays cheap
+    private static boolean reject(HttpServletResponse response, HttpStatus status, long retryAfterSeconds) {
+        response.setStatus(status.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(retryAfterSeconds));
+        return false;
+    }
+
+    // getAllProducts -> get-all-products, matching the product.load-shedding.endpoints.* keys
+    private static String toKebabCase(String name) {
+        StringBuilder kebab = new StringBuilder(name.length() + 8);
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            if (Character.isUpperCase(c)) {
+                kebab.append('-').append(Character.toLowerCase(c));
+            } else {
+                kebab.append(c);
+            }
+        }
+        return kebab.toString().toLowerCase(Locale.ROOT);
+    }
+
+    private static final class Endpoint {
+
+        private final String name;
+        private final double ratePerSecond;
+        private final double burst;
+        private final AdaptiveConcurrencyLimit limit;
+        private final Counter rateLimited;
+        private final Counter overloaded;
+
+        private Endpoint(String name, LoadSheddingConfig.Limits limits, MeterRegistry meterRegistry) {
+            this.name = name;
+            this.ratePerSecond = limits.rate() == null ? 0.0 : limits.rate();
+            this.burst = limits.burst() == null ? ratePerSecond : limits.burst();
+            this.limit = limits.maxConcurrency() == null || limits.maxConcurrency() <= 0
+                    ? null
+                    : new AdaptiveConcurrencyLimit(
+                            limits.minConcurrency() == null ? 1 : limits.minConcurrency(),
+                            limits.maxConcurrency(),
+                            limits.targetLatency() == null ? Long.MAX_VALUE : limits.targetLatency().toNanos());
+
+            this.rateLimited = Counter.builder("product.requests.rejected")
+                    .tag("endpoint", name).tag("reason", "rate_limited")
+                    .register(meterRegistry);
+            this.overloaded = Counter.builder("product.requests.rejected")
+                    .tag("endpoint", name).tag("reason", "overloaded")
+                    .register(meterRegistry);
+            if (limit != null) {
+                Gauge.builder("product.requests.concurrency.limit", limit, AdaptiveConcurrencyLimit::limit)
+                        .tag("endpoint", name)
+                        .register(meterRegistry);
+                Gauge.builder("product.requests.in.flight", limit, AdaptiveConcurrencyLimit::inFlight)
+                        .tag("endpoint", name)
+                        .register(meterRegistry);
+            }
+        }
+    }
+
+    // A bulkhead permit, released exactly once however the request ends
+    private static final class Admission {
+
+        private final AdaptiveConcurrencyLimit limit;
+        private final long startedAt = System.nanoTime();
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private Admission(AdaptiveConcurrencyLimit limit) {
+            this.limit = limit;
+        }
+
+        private void release(boolean failed) {
+            if (released.compareAndSet(false, true)) {
+                limit.release(System.nanoTime() - startedAt, failed);
+            }
+        }
+    }
+}
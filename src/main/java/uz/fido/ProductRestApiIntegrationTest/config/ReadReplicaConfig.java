@@ -0,0 +1,115 @@
+package uz.fido.ProductRestApiIntegrationTest.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.Ordered;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Active when {@code product.datasource.replicas.urls} is set. Read-only transactions then run
+ * on the replica pools and everything else on the primary ({@code spring.datasource.*}). The
+ * primary is wrapped in a {@link LazyConnectionDataSourceProxy}, which only fetches a physical
+ * connection at the first statement, after the transaction's read-only flag is known.
+ */
+@Configuration(proxyBeanMethods = false)
+@Profile("!reactive")
+@ConditionalOnProperty("product.datasource.replicas.urls")
+public class ReadReplicaConfig {
+
+    @Bean
+    static BeanPostProcessor readReplicaDataSourcePostProcessor(Environment environment,
+                                                                ObjectProvider<MeterRegistry> meterRegistry) {
+        return new ReadReplicaPostProcessor(environment, meterRegistry);
+    }
+
+    // Runs after the virtual-thread limiter (so the primary is already limited) and before the statement counter
+    private static final class ReadReplicaPostProcessor implements BeanPostProcessor, Ordered, DisposableBean {
+
+        private final Environment environment;
+        private final ObjectProvider<MeterRegistry> meterRegistry;
+        private ReplicaRoutingDataSource replicas;
+
+        private ReadReplicaPostProcessor(Environment environment, ObjectProvider<MeterRegistry> meterRegistry) {
+            this.environment = environment;
+            this.meterRegistry = meterRegistry;
+        }
+
+        @Override
+        public Object postProcessAfterInitialization(Object bean, String beanName) {
+            if (bean instanceof DataSource && replicas == null) {
+                DataSource primary = (DataSource) bean;
+                replicas = createReplicas(primary);
+                LazyConnectionDataSourceProxy routing = new LazyConnectionDataSourceProxy(primary);
+                routing.setReadOnlyDataSource(replicas);
+                return routing;
+            }
+            return bean;
+        }
+
+        @Override
+        public int getOrder() {
+            return Ordered.HIGHEST_PRECEDENCE + 10;
+        }
+
+        @Override
+        public void destroy() {
+            if (replicas != null) {
+                replicas.close();
+            }
+        }
+
+        private ReplicaRoutingDataSource createReplicas(DataSource primary) {
+            String prefix = "product.datasource.replicas.";
+            String[] urls = environment.getRequiredProperty(prefix + "urls", String[].class);
+            String username = environment.getProperty(prefix + "username", environment.getProperty("spring.datasource.username"));
+            String password = environment.getProperty(prefix + "password", environment.getProperty("spring.datasource.password"));
+            int maximumPoolSize = environment.getProperty(prefix + "maximum-pool-size", Integer.class, 10);
+            int minimumIdle = environment.getProperty(prefix + "minimum-idle", Integer.class, 2);
+            long connectionTimeout = environment.getProperty("spring.datasource.hikari.connection-timeout", Long.class, 30_000L);
+            boolean virtualThreads = environment.getProperty("spring.threads.virtual.enabled", Boolean.class, false);
+            MeterRegistry registry = meterRegistry.getIfAvailable();
+
+            List<HikariDataSource> pools = new ArrayList<>(urls.length);
+            List<DataSource> access = new ArrayList<>(urls.length);
+            for (int i = 0; i < urls.length; i++) {
+                HikariDataSource pool = new HikariDataSource();
+                pool.setPoolName("replica-" + (i + 1));
+                pool.setJdbcUrl(urls[i].trim());
+                pool.setUsername(username);
+                pool.setPassword(password);
+                pool.setMaximumPoolSize(maximumPoolSize);
+                pool.setMinimumIdle(minimumIdle);
+                pool.setConnectionTimeout(connectionTimeout);
+                pool.setReadOnly(true);
+                if (registry != null) {
+                    // Replica pools are not beans, so Boot does not bind their hikaricp.* metrics itself
+                    pool.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(registry));
+                }
+                pools.add(pool);
+                access.add(virtualThreads ? ConnectionLimitingDataSource.inFrontOf(pool) : pool);
+            }
+
+            String strategy = environment.getProperty(prefix + "strategy", "round-robin");
+            Duration maxLag = environment.getProperty(prefix + "max-lag", Duration.class, Duration.ofSeconds(5));
+            Duration lagCheckInterval = environment.getProperty(prefix + "lag-check-interval", Duration.class, Duration.ofSeconds(5));
+            return new ReplicaRoutingDataSource(primary, pools, access,
+                    ReplicaRoutingDataSource.Strategy.valueOf(strategy.trim().toUpperCase(Locale.ROOT).replace('-', '_')),
+                    maxLag.toMillis(), lagCheckInterval.toMillis());
+        }
+    }
+}
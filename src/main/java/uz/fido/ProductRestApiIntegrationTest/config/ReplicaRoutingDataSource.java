@@ -0,0 +1,165 @@
+package uz.fido.ProductRestApiIntegrationTest.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Connections for read-only transactions, handed out by {@code LazyConnectionDataSourceProxy}
+ * once a transaction has been marked read-only. Each connection comes from one of the replica
+ * pools, chosen round-robin or by fewest active connections. Replicas that cannot be reached,
+ * or that replay more than {@code maxLagMillis} behind the primary, are skipped until the next
+ * lag check; with none left the read goes to the primary.
+ */
+public class ReplicaRoutingDataSource extends AbstractDataSource implements AutoCloseable {
+
+    public enum Strategy {
+        ROUND_ROBIN,
+        LEAST_CONNECTIONS
+    }
+
+    // Replay lag in seconds; zero when the standby has replayed everything it has received
+    private static final String LAG_SQL = "SELECT CASE"
+            + " WHEN NOT pg_is_in_recovery() OR pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0"
+            + " ELSE COALESCE(EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp()), 0) END";
+
+    private static final ThreadLocal<Boolean> PRIMARY_ONLY = new ThreadLocal<>();
+
+    private final DataSource primary;
+    private final List<Replica> replicas;
+    private final Strategy strategy;
+    private final long maxLagMillis;
+    private final AtomicInteger nextReplica = new AtomicInteger();
+    private final ScheduledExecutorService lagChecker;
+
+    public ReplicaRoutingDataSource(DataSource primary, List<HikariDataSource> pools, List<DataSource> access,
+                                    Strategy strategy, long maxLagMillis, long lagCheckIntervalMillis) {
+        this.primary = primary;
+        this.replicas = new ArrayList<>(pools.size());
+        for (int i = 0; i < pools.size(); i++) {
+            replicas.add(new Replica(pools.get(i), access.get(i)));
+        }
+        this.strategy = strategy;
+        this.maxLagMillis = maxLagMillis;
+        this.lagChecker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "replica-lag-check");
+            thread.setDaemon(true);
+            return thread;
+        });
+        lagChecker.scheduleWithFixedDelay(this::checkReplicas, 0, lagCheckIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Runs {@code action} with its read-only transactions on the primary, for reads that must
+     * see the latest committed state (such as loads that populate a cache).
+     */
+    public static <T> T onPrimary(Supplier<T> action) {
+        Boolean previous = PRIMARY_ONLY.get();
+        PRIMARY_ONLY.set(Boolean.TRUE);
+        try {
+            return action.get();
+        } finally {
+            if (previous == null) {
+                PRIMARY_ONLY.remove();
+            } else {
+                PRIMARY_ONLY.set(previous);
+            }
+        }
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (PRIMARY_ONLY.get() == null) {
+            Replica replica = choose();
+            if (replica != null) {
+                try {
+                    return replica.access.getConnection();
+                } catch (SQLException | RuntimeException e) {
+                    replica.available = false; // Back in rotation after the next successful check
+                }
+            }
+        }
+        return primary.getConnection();
+    }
+
+    // The replica pools hold connections for their configured user only, so a caller asking for
+    // other credentials gets what the primary gives it, as when no replica is available
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return primary.getConnection(username, password);
+    }
+
+    @Override
+    public void close() {
+        lagChecker.shutdownNow();
+        replicas.forEach(replica -> replica.pool.close());
+    }
+
+    private Replica choose() {
+        List<Replica> available = new ArrayList<>(replicas.size());
+        for (Replica replica : replicas) {
+            if (replica.available) {
+                available.add(replica);
+            }
+        }
+        if (available.isEmpty()) {
+            return null;
+        }
+
+        if (strategy == Strategy.LEAST_CONNECTIONS) {
+            Replica least = available.get(0);
+            for (Replica replica : available) {
+                if (replica.activeConnections() < least.activeConnections()) {
+                    least = replica;
+                }
+            }
+            return least;
+        }
+        return available.get(Math.floorMod(nextReplica.getAndIncrement(), available.size()));
+    }
+
+    // Runs every lag-check interval; package-private so tests can check on demand
+    void checkReplicas() {
+        for (Replica replica : replicas) {
+            try (Connection connection = replica.pool.getConnection();
+                 Statement statement = connection.createStatement();
+                 ResultSet lag = statement.executeQuery(LAG_SQL)) {
+                lag.next();
+                long lagMillis = (long) (lag.getDouble(1) * 1000);
+                replica.available = maxLagMillis <= 0 || lagMillis <= maxLagMillis;
+            } catch (SQLException | RuntimeException e) {
+                replica.available = false;
+            }
+        }
+    }
+
+    private static final class Replica {
+
+        private final HikariDataSource pool;
+        private final DataSource access;
+        private volatile boolean available = true;
+
+        private Replica(HikariDataSource pool, DataSource access) {
+            this.pool = pool;
+            this.access = access;
+        }
+
+        private int activeConnections() {
+            HikariPoolMXBean bean = pool.getHikariPoolMXBean();
+            return bean == null ? 0 : bean.getActiveConnections();
+        }
+    }
+}
@@ -0,0 +1,198 @@
+package uz.fido.ProductRestApiIntegrationTest.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.Locale;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Inflates request bodies sent with {@code Content-Encoding: gzip} or {@code deflate}, so
+ * message converters read plain JSON / Smile / CSV. The decompressed size is capped, so a
+ * small compressed body cannot expand without bound; other encodings get 415.
+ */
+public class RequestDecompressionFilter extends OncePerRequestFilter {
+
+    private static final String SUPPORTED_ENCODINGS = "gzip, deflate";
+    private static final int INFLATE_BUFFER_BYTES = 64 * 1024;
+
+    private final long maxDecompressedBytes;
+
+    public RequestDecompressionFilter(long maxDecompressedBytes) {
+        this.maxDecompressedBytes = maxDecompressedBytes;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        String header = request.getHeader(HttpHeaders.CONTENT_ENCODING);
+        String encoding = header == null ? "identity" : header.trim().toLowerCase(Locale.ROOT);
+
+        switch (encoding) {
+            case "":
+            case "identity":
+                filterChain.doFilter(request, response);
+                break;
+            case "gzip":
+            case "x-gzip":
+            case "deflate":
+                filterChain.doFilter(new DecompressingRequest(request, encoding, maxDecompressedBytes), response);
+                break;
+            default:
+                // RFC 7694: tell the client which encodings would have been accepted
+                response.setHeader(HttpHeaders.ACCEPT_ENCODING, SUPPORTED_ENCODINGS);
+                response.sendError(HttpServletResponse.SC_UNSUPPORTED_MEDIA_TYPE);
+        }
+    }
+
+    private static final class DecompressingRequest extends HttpServletRequestWrapper {
+
+        private final String encoding;
+        private final long maxBytes;
+        private ServletInputStream inputStream;
+        private BufferedReader reader;
+
+        private DecompressingRequest(HttpServletRequest request, String encoding, long maxBytes) {
+            super(request);
+            this.encoding = encoding;
+            this.maxBytes = maxBytes;
+        }
+
+        @Override
+        public ServletInputStream getInputStream() throws IOException {
+            if (reader != null) {
+                throw new IllegalStateException("getReader() has already been called for this request");
+            }
+            if (inputStream == null) {
+                InputStream compressed = super.getInputStream();
+                InputStream inflated = encoding.equals("deflate")
+                        ? new InflaterInputStream(compressed, new Inflater(), INFLATE_BUFFER_BYTES)
+                        : new GZIPInputStream(compressed, INFLATE_BUFFER_BYTES);
+                inputStream = new LimitedServletInputStream(inflated, maxBytes);
+            }
+            return inputStream;
+        }
+
+        @Override
+        public BufferedReader getReader() throws IOException {
+            if (reader == null) {
+                String characterEncoding = getCharacterEncoding();
+                Charset charset = characterEncoding != null ? Charset.forName(characterEncoding) : StandardCharsets.UTF_8;
+                reader = new BufferedReader(new InputStreamReader(getInputStream(), charset));
+            }
+            return reader;
+        }
+
+        // The decoded body has neither the original encoding nor the original length
+        @Override
+        public int getContentLength() {
+            return -1;
+        }
+
+        @Override
+        public long getContentLengthLong() {
+            return -1L;
+        }
+
+        @Override
+        public String getHeader(String name) {
+            return isHidden(name) ? null : super.getHeader(name);
+        }
+
+        @Override
+        public Enumeration<String> getHeaders(String name) {
+            return isHidden(name) ? Collections.emptyEnumeration() : super.getHeaders(name);
+        }
+
+        @Override
+        public Enumeration<String> getHeaderNames() {
+            List<String> names = Collections.list(super.getHeaderNames());
+            names.removeIf(DecompressingRequest::isHidden);
+            return Collections.enumeration(names);
+        }
+
+        private static boolean isHidden(String name) {
+            return HttpHeaders.CONTENT_ENCODING.equalsIgnoreCase(name) || HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name);
+        }
+    }
+
+    private static final class LimitedServletInputStream extends ServletInputStream {
+
+        private final InputStream delegate;
+        private final long maxBytes;
+        private long readBytes;
+        private boolean finished;
+
+        private LimitedServletInputStream(InputStream delegate, long maxBytes) {
+            this.delegate = delegate;
+            this.maxBytes = maxBytes;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int value = delegate.read();
+            if (value < 0) {
+                finished = true;
+            } else {
+                count(1);
+            }
+            return value;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int read = delegate.read(buffer, offset, length);
+            if (read < 0) {
+                finished = true;
+            } else {
+                count(read);
+            }
+            return read;
+        }
+
+        @Override
+        public void close() throws IOException {
+            delegate.close();
+        }
+
+        @Override
+        public boolean isFinished() {
+            return finished;
+        }
+
+        @Override
+        public boolean isReady() {
+            return true;
+        }
+
+        @Override
+        public void setReadListener(ReadListener readListener) {
+            throw new UnsupportedOperationException("Non-blocking reads are not supported for compressed bodies");
+        }
+
+        private void count(int bytes) throws IOException {
+            readBytes += bytes;
+            if (readBytes > maxBytes) {
+                throw new IOException("Decompressed request body exceeds " + maxBytes + " bytes");
+            }
+        }
+    }
+}
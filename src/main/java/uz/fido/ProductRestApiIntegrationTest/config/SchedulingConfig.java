@@ -0,0 +1,14 @@
+package uz.fido.ProductRestApiIntegrationTest.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Background work of the servlet stack, such as resuming async import jobs.
+ */
+@Configuration(proxyBeanMethods = false)
+@Profile("!reactive")
+@EnableScheduling
+public class SchedulingConfig {
+}
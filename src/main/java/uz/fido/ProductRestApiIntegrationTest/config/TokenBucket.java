@@ -0,0 +1,48 @@
+package uz.fido.ProductRestApiIntegrationTest.config;
+
+import com.github.benmanes.caffeine.cache.Ticker;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Classic token bucket: {@code capacity} tokens, refilled continuously at {@code ratePerSecond}.
+ * Guarded by a {@link ReentrantLock} so virtual threads waiting on it do not pin their carrier.
+ * Time comes from a {@link Ticker}, so tests can pin it.
+ */
+final class TokenBucket {
+
+    private final double capacity;
+    private final double tokensPerNano;
+    private final Ticker ticker;
+    private final ReentrantLock lock = new ReentrantLock();
+    private double tokens;
+    private long refilledAt;
+
+    TokenBucket(double ratePerSecond, double capacity, Ticker ticker) {
+        this.capacity = Math.max(1.0, capacity);
+        this.tokensPerNano = ratePerSecond / TimeUnit.SECONDS.toNanos(1);
+        this.ticker = ticker;
+        this.tokens = this.capacity;
+        this.refilledAt = ticker.read();
+    }
+
+    /**
+     * Takes a token and returns 0, or returns how many nanoseconds it will be until one is available.
+     */
+    long tryAcquire() {
+        lock.lock();
+        try {
+            long now = ticker.read();
+            tokens = Math.min(capacity, tokens + (now - refilledAt) * tokensPerNano);
+            refilledAt = now;
+            if (tokens >= 1.0) {
+                tokens -= 1.0;
+                return 0L;
+            }
+            return tokensPerNano <= 0.0 ? Long.MAX_VALUE : (long) Math.ceil((1.0 - tokens) / tokensPerNano);
+        } finally {
+            lock.unlock();
+        }
+    }
+}
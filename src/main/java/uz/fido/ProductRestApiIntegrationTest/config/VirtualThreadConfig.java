@@ -0,0 +1,41 @@
+package uz.fido.ProductRestApiIntegrationTest.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+/**
+ * Active with {@code spring.threads.virtual.enabled=true}. Spring Boot then serves Tomcat
+ * requests and the application task executor (used for streamed responses) on virtual
+ * threads; this adds a fair connection limiter sized to the Hikari pool in front of it.
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnThreading(Threading.VIRTUAL)
+public class VirtualThreadConfig {
+
+    @Bean
+    static BeanPostProcessor connectionLimitingDataSourcePostProcessor() {
+        return new ConnectionLimitingPostProcessor();
+    }
+
+    // Must see the raw HikariDataSource, before any other DataSource wrapper is applied
+    private static final class ConnectionLimitingPostProcessor implements BeanPostProcessor, Ordered {
+
+        @Override
+        public Object postProcessAfterInitialization(Object bean, String beanName) {
+            if (bean instanceof HikariDataSource) {
+                return ConnectionLimitingDataSource.inFrontOf((HikariDataSource) bean);
+            }
+            return bean;
+        }
+
+        @Override
+        public int getOrder() {
+            return Ordered.HIGHEST_PRECEDENCE;
+        }
+    }
+}
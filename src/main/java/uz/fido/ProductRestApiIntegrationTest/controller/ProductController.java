@@ -1,28 +1,100 @@
 package uz.fido.ProductRestApiIntegrationTest.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
-import uz.fido.ProductRestApiIntegrationTest.exception.ProductNotFoundException;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+import uz.fido.ProductRestApiIntegrationTest.dto.ImportJobStatus;
+import uz.fido.ProductRestApiIntegrationTest.dto.ImportSummary;
+import uz.fido.ProductRestApiIntegrationTest.dto.ProductEvent;
+import uz.fido.ProductRestApiIntegrationTest.dto.ProductFieldsPage;
+import uz.fido.ProductRestApiIntegrationTest.dto.ProductPage;
+import uz.fido.ProductRestApiIntegrationTest.dto.ProductSearchResult;
+import uz.fido.ProductRestApiIntegrationTest.dto.ProductSummary;
+import uz.fido.ProductRestApiIntegrationTest.dto.ProductUpdateOutcome;
 import uz.fido.ProductRestApiIntegrationTest.model.Product;
+import uz.fido.ProductRestApiIntegrationTest.service.ProductEventService;
+import uz.fido.ProductRestApiIntegrationTest.service.ProductExportService;
+import uz.fido.ProductRestApiIntegrationTest.service.ProductImportJobService;
+import uz.fido.ProductRestApiIntegrationTest.service.ProductImportService;
 import uz.fido.ProductRestApiIntegrationTest.service.ProductService;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 
+/**
+ * Product API on Spring MVC. Missing products, version conflicts and invalid input surface as
+ * exceptions from {@link ProductService} and are mapped to statuses by {@link ProductExceptionHandler}.
+ */
 @RestController
+@Profile("!reactive")
 @RequestMapping("/api/products")
 @CrossOrigin(origins = "*") // Configure as needed for your security requirements
 public class ProductController {
 
+    private static final String TEXT_CSV_VALUE = "text/csv";
+    private static final byte[] SSE_KEEPALIVE = ": keepalive\n\n".getBytes(StandardCharsets.US_ASCII);
+    // Tomcat's sendfile request attributes (NIO connector without TLS)
+    private static final String SENDFILE_SUPPORTED = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
     private final ProductService productService;
+    private final ProductImportService productImportService;
+    private final ProductImportJobService productImportJobService;
+    private final ProductEventService productEventService;
+    private final ProductExportService productExportService;
+    private final ObjectWriter ndjsonWriter;
+    private final Duration eventStreamTimeout;
 
     @Autowired
-    public ProductController(ProductService productService) {
+    public ProductController(ProductService productService,
+                             ProductImportService productImportService,
+                             ProductImportJobService productImportJobService,
+                             ProductEventService productEventService,
+                             ProductExportService productExportService,
+                             ObjectMapper objectMapper,
+                             @Value("${product.events.stream-timeout:5m}") Duration eventStreamTimeout) {
         this.productService = productService;
+        this.productImportService = productImportService;
+        this.productImportJobService = productImportJobService;
+        this.productEventService = productEventService;
+        this.productExportService = productExportService;
+        // One object per line: pretty-printing would break the NDJSON framing
+        this.ndjsonWriter = objectMapper.writer().without(SerializationFeature.INDENT_OUTPUT);
+        this.eventStreamTimeout = eventStreamTimeout;
     }
 
     @PostMapping
@@ -31,76 +103,360 @@ public class ProductController {
         return new ResponseEntity<>(createdProduct, HttpStatus.CREATED);
     }
 
+    // A matching If-None-Match is answered with 304 by Spring before the body is serialized
     @GetMapping("/{id}")
     public ResponseEntity<Product> getProductById(@PathVariable Long id) {
+        Optional<Product> product = productService.getProductById(id);
+        return product.map(ProductController::okWithVersionETag)
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    // List handlers check If-None-Match against the change token before running their query.
+    // Without limit, a listing is still one page at the default size, never the whole table: a plain
+    // listing stays a bare array and links the next page, a price range or sort gets the page object
+    @GetMapping
+    public ResponseEntity<?> getAllProducts(
+            @RequestParam(required = false) Long after,
+            @RequestParam(required = false) Double afterPrice,
+            @RequestParam(required = false) Double minPrice,
+            @RequestParam(required = false) Double maxPrice,
+            @RequestParam(required = false) String sort,
+            WebRequest webRequest) {
+        if (minPrice != null || maxPrice != null || sort != null) {
+            return getProductsPage(after, afterPrice, null, minPrice, maxPrice, sort, webRequest);
+        }
+        String etag = changeTokenETag();
+        if (webRequest.checkNotModified(etag)) {
+            return null;
+        }
+        List<ProductSummary> products = productService.getAllProducts(after);
+        Long nextCursor = products.size() < productService.getDefaultPageSize()
+                ? null
+                : products.get(products.size() - 1).id();
+        return withNextLink(ResponseEntity.ok().eTag(etag), nextCursor).body(products);
+    }
+
+    @GetMapping(params = "fields")
+    public ResponseEntity<?> getAllProductFields(
+            @RequestParam String fields,
+            @RequestParam(required = false) Long after,
+            @RequestParam(required = false) Double afterPrice,
+            @RequestParam(required = false) Double minPrice,
+            @RequestParam(required = false) Double maxPrice,
+            @RequestParam(required = false) String sort,
+            WebRequest webRequest) {
+        if (minPrice != null || maxPrice != null || sort != null) {
+            return getProductFieldsPage(fields, after, afterPrice, null, minPrice, maxPrice, sort, webRequest);
+        }
+        String etag = changeTokenETag();
+        if (webRequest.checkNotModified(etag)) {
+            return null;
+        }
+        ProductFieldsPage page = productService.getProductFieldsPage(fields, after, null, null, null, null, null);
+        return withNextLink(ResponseEntity.ok().eTag(etag), page.nextCursor()).body(page.items());
+    }
+
+    @GetMapping(params = {"limit", "fields"})
+    public ResponseEntity<ProductFieldsPage> getProductFieldsPage(
+            @RequestParam String fields,
+            @RequestParam(required = false) Long after,
+            @RequestParam(required = false) Double afterPrice,
+            @RequestParam Integer limit,
+            @RequestParam(required = false) Double minPrice,
+            @RequestParam(required = false) Double maxPrice,
+            @RequestParam(required = false) String sort,
+            WebRequest webRequest) {
+        String etag = changeTokenETag();
+        if (webRequest.checkNotModified(etag)) {
+            return null;
+        }
+        ProductFieldsPage page = productService.getProductFieldsPage(fields, after, afterPrice, limit, minPrice, maxPrice, sort);
+        return ResponseEntity.ok().eTag(etag).body(page);
+    }
+
+    @GetMapping(params = "limit")
+    public ResponseEntity<ProductPage> getProductsPage(
+            @RequestParam(required = false) Long after,
+            @RequestParam(required = false) Double afterPrice,
+            @RequestParam Integer limit,
+            @RequestParam(required = false) Double minPrice,
+            @RequestParam(required = false) Double maxPrice,
+            @RequestParam(required = false) String sort,
+            WebRequest webRequest) {
+        String etag = changeTokenETag();
+        if (webRequest.checkNotModified(etag)) {
+            return null;
+        }
+        ProductPage page = productService.getProductsPage(after, afterPrice, limit, minPrice, maxPrice, sort);
+        return ResponseEntity.ok().eTag(etag).body(page);
+    }
+
+    @GetMapping("/search")
+    public ResponseEntity<ProductSearchResult> searchProducts(
+            @RequestParam("q") String query,
+            @RequestParam(defaultValue = "false") boolean prefix,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) Integer offset) {
+        ProductSearchResult result = productService.searchProducts(query, prefix, limit, offset);
+        return ResponseEntity.ok(result);
+    }
+
+    @GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamAllProducts() {
+        StreamingResponseBody body = outputStream -> productService.streamAllProducts(product -> {
+            try {
+                outputStream.write(ndjsonWriter.writeValueAsBytes(product));
+                outputStream.write('\n');
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(body);
+    }
+
+    // The whole table as COPY produces it, CSV with a header line or PostgreSQL's binary COPY format
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportProducts(@RequestParam(defaultValue = "csv") String format) {
+        ProductExportService.Format exportFormat = ProductExportService.Format.fromParameter(format);
+        StreamingResponseBody body = outputStream -> productExportService.exportProducts(outputStream, exportFormat);
+        return ResponseEntity.ok()
+                .contentType(exportMediaType(exportFormat))
+                .header(HttpHeaders.CONTENT_DISPOSITION, exportDisposition(exportFormat))
+                .body(body);
+    }
+
+    /**
+     * The latest export snapshot (404 until the first one is written), with conditional and
+     * single-range requests; If-Range is checked against the snapshot's ETag or Last-Modified.
+     * Under Tomcat the file goes out with sendfile, otherwise with {@link FileChannel#transferTo}.
+     */
+    @GetMapping("/export/snapshot")
+    public void downloadExportSnapshot(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        Optional<ProductExportService.Snapshot> current = productExportService.currentSnapshot();
+        if (current.isEmpty()) {
+            response.setStatus(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+        ProductExportService.Snapshot snapshot = current.get();
+        long lastModified = snapshot.createdAt().toEpochMilli();
+        // Sets ETag and Last-Modified, or answers 304
+        if (new ServletWebRequest(request, response).checkNotModified(snapshot.etag(), lastModified)) {
+            return;
+        }
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        response.setContentType(exportMediaType(snapshot.format()).toString());
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, exportDisposition(snapshot.format()));
+
+        long size = snapshot.size();
+        long start = 0;
+        long end = size - 1;
+        String rangeHeader = request.getHeader(HttpHeaders.RANGE);
+        if (rangeHeader != null && ifRangeMatches(request, snapshot.etag(), lastModified)) {
+            List<HttpRange> ranges;
+            try {
+                ranges = HttpRange.parseRanges(rangeHeader);
+            } catch (IllegalArgumentException e) {
+                // RFC 9110: a Range header that cannot be parsed is ignored
+                ranges = List.of();
+            }
+            // Several ranges would need a multipart body; sending the whole file instead is allowed
+            if (ranges.size() == 1) {
+                if (ranges.get(0).getRangeStart(size) >= size) {
+                    response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + size);
+                    response.setStatus(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE.value());
+                    return;
+                }
+                start = ranges.get(0).getRangeStart(size);
+                end = ranges.get(0).getRangeEnd(size);
+                response.setStatus(HttpStatus.PARTIAL_CONTENT.value());
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + size);
+            }
+        }
+        long length = end - start + 1;
+        response.setContentLengthLong(length);
+        if (length == 0 || "HEAD".equals(request.getMethod())) {
+            return;
+        }
+
+        if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORTED))) {
+            // Tomcat sends the file from its poller once this handler returns, without copying it
+            // through the JVM heap; that is also why a replaced snapshot is kept for one more refresh
+            request.setAttribute(SENDFILE_FILENAME, snapshot.file().toAbsolutePath().toString());
+            request.setAttribute(SENDFILE_START, start);
+            request.setAttribute(SENDFILE_END, end + 1);
+            return;
+        }
+        try (FileChannel file = FileChannel.open(snapshot.file(), StandardOpenOption.READ)) {
+            WritableByteChannel out = Channels.newChannel(response.getOutputStream());
+            long position = start;
+            while (position <= end) {
+                long sent = file.transferTo(position, end + 1 - position, out);
+                if (sent <= 0) {
+                    throw new IOException("Snapshot " + snapshot.file() + " ended before byte " + position);
+                }
+                position += sent;
+            }
+        }
+    }
+
+    /**
+     * Product changes after {@code after} (or the SSE {@code Last-Event-ID} on reconnect; without
+     * either, only changes from now on), as Server-Sent Events or NDJSON depending on Accept.
+     * With {@code follow=false} the response ends once the backlog has been sent.
+     */
+    @GetMapping(value = "/events", produces = {MediaType.TEXT_EVENT_STREAM_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public ResponseEntity<ResponseBodyEmitter> streamProductEvents(
+            @RequestParam(required = false) Long after,
+            @RequestParam(defaultValue = "true") boolean follow,
+            @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+        long offset;
         try {
-            Optional<Product> product = productService.getProductById(id);
-            return product.map(p -> ResponseEntity.ok(p))
-                    .orElseGet(() -> ResponseEntity.notFound().build());
-        } catch (Exception e) {
-            return ResponseEntity.notFound().build();
+            offset = lastEventId != null ? Long.parseLong(lastEventId.trim())
+                    : after != null ? after
+                    : productEventService.head();
+        } catch (NumberFormatException e) {
+            return ResponseEntity.badRequest().build();
+        }
+        boolean sse = accept != null && MediaType.parseMediaTypes(accept).stream()
+                .anyMatch(type -> type.equalsTypeAndSubtype(MediaType.TEXT_EVENT_STREAM));
+        MediaType mediaType = sse ? MediaType.TEXT_EVENT_STREAM : MediaType.APPLICATION_NDJSON;
+
+        ResponseBodyEmitter emitter = new ResponseBodyEmitter(eventStreamTimeout.toMillis());
+        ProductEventService.Subscription subscription;
+        try {
+            subscription = productEventService.subscribe(offset, follow, new ProductEventService.EventSink() {
+                @Override
+                public void onEvents(List<ProductEvent> batch) throws IOException {
+                    // One write and flush per batch
+                    emitter.send(frameEvents(batch, sse), mediaType);
+                }
+
+                @Override
+                public void onIdle() throws IOException {
+                    if (sse) {
+                        // Keeps proxies from closing an idle stream and detects clients that are gone
+                        emitter.send(SSE_KEEPALIVE, mediaType);
+                    }
+                }
+
+                @Override
+                public void onEnd(Exception error) {
+                    if (error == null) {
+                        emitter.complete();
+                    } else {
+                        emitter.completeWithError(error);
+                    }
+                }
+            });
+        } catch (TaskRejectedException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, "5")
+                    .build();
         }
+        emitter.onCompletion(subscription::cancel);
+        emitter.onError(error -> subscription.cancel());
+        emitter.onTimeout(() -> {
+            // Clients reconnect from the last offset they received
+            subscription.cancel();
+            emitter.complete();
+        });
+
+        return ResponseEntity.ok()
+                .contentType(mediaType)
+                .cacheControl(CacheControl.noStore())
+                .body(emitter);
     }
 
-    @GetMapping
-    public ResponseEntity<List<Product>> getAllProducts() {
-        List<Product> products = productService.getAllProducts();
-        return ResponseEntity.ok(products);
+    // Start offset for consumers that bootstrap from GET /api/products and then follow the stream
+    @GetMapping("/events/head")
+    public ResponseEntity<Long> getProductEventsHead() {
+        return ResponseEntity.ok(productEventService.head());
     }
 
     @PutMapping("/{id}")
     public ResponseEntity<Product> updateProduct(
             @PathVariable Long id,
-            @RequestBody @Valid Product productDetails) {
-        try {
-            Product updatedProduct = productService.updateProduct(id, productDetails);
-            return ResponseEntity.ok(updatedProduct);
-        } catch (ProductNotFoundException e) {
-            return ResponseEntity.notFound().build();
-        }
+            @RequestBody @Valid Product productDetails,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        Product updatedProduct = productService.updateProduct(id, productDetails, expectedVersion(ifMatch));
+        return okWithVersionETag(updatedProduct);
     }
 
     @PatchMapping("/{id}")
     public ResponseEntity<Product> partialUpdateProduct(
             @PathVariable Long id,
-            @RequestBody Map<String, Object> updates) {
-        try {
-            // Validate that the product exists first
-            if (!productService.existsById(id)) {
-                return ResponseEntity.notFound().build();
-            }
-
-            Product updatedProduct = productService.partialUpdateProduct(id, updates);
-            return ResponseEntity.ok(updatedProduct);
-        } catch (ProductNotFoundException e) {
-            return ResponseEntity.notFound().build();
-        } catch (Exception e) {
-            return ResponseEntity.badRequest().build();
-        }
+            @RequestBody Map<String, Object> updates,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        // Price-only changes go through the write-behind buffer when it is enabled
+        Optional<Product> buffered = ifMatch == null
+                ? productService.bufferPriceUpdate(id, updates)
+                : Optional.empty();
+        Product updatedProduct = buffered.isPresent()
+                ? buffered.get()
+                : productService.partialUpdateProduct(id, updates, expectedVersion(ifMatch));
+        return okWithVersionETag(updatedProduct);
     }
 
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> deleteProduct(@PathVariable Long id) {
-        try {
-            productService.deleteProduct(id);
-            return ResponseEntity.noContent().build();
-        } catch (ProductNotFoundException e) {
-            return ResponseEntity.notFound().build();
-        }
+        productService.deleteProduct(id);
+        return ResponseEntity.noContent().build();
     }
 
     @PostMapping("/bulk")
     public ResponseEntity<List<Product>> createProducts(@RequestBody List<@Valid Product> products) {
-        try {
-            if (products == null || products.isEmpty()) {
-                return ResponseEntity.badRequest().build();
-            }
+        if (products == null || products.isEmpty()) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        List<Product> savedProducts = productService.createProducts(products);
+        return ResponseEntity.status(HttpStatus.CREATED).body(savedProducts);
+    }
 
-            List<Product> savedProducts = productService.createProducts(products);
-            return ResponseEntity.status(HttpStatus.CREATED).body(savedProducts);
-        } catch (Exception e) {
+    // Rows are validated one by one by the job; invalid rows are reported rather than failing the request
+    @PostMapping(value = "/bulk", params = "async=true")
+    public ResponseEntity<ImportJobStatus> submitBulkImport(@RequestBody List<Product> products) {
+        if (products == null || products.isEmpty()) {
             return ResponseEntity.badRequest().build();
         }
+
+        ImportJobStatus job = productImportJobService.submit(products);
+        return ResponseEntity.accepted()
+                .location(URI.create("/api/products/bulk/jobs/" + job.id()))
+                .body(job);
+    }
+
+    @GetMapping("/bulk/jobs/{jobId}")
+    public ResponseEntity<ImportJobStatus> getBulkImportStatus(@PathVariable Long jobId) {
+        return productImportJobService.getStatus(jobId)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    @PatchMapping("/bulk")
+    public ResponseEntity<List<ProductUpdateOutcome>> partialUpdateProducts(
+            @RequestBody List<Map<String, Object>> updates) {
+        if (updates == null || updates.isEmpty()) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        List<ProductUpdateOutcome> outcomes = productService.partialUpdateProducts(updates);
+        return ResponseEntity.ok(outcomes);
+    }
+
+    @PostMapping(value = "/import", consumes = {TEXT_CSV_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public ResponseEntity<ImportSummary> importProducts(
+            @RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType,
+            InputStream body) {
+        boolean ndjson = MediaType.parseMediaType(contentType).isCompatibleWith(MediaType.APPLICATION_NDJSON);
+        ProductImportService.Format format = ndjson
+                ? ProductImportService.Format.NDJSON
+                : ProductImportService.Format.CSV;
+        ImportSummary summary = productImportService.importProducts(body, format);
+        return ResponseEntity.ok(summary);
     }
 
     @GetMapping("/exists/{id}")
@@ -108,4 +464,94 @@ public class ProductController {
         boolean exists = productService.existsById(id);
         return ResponseEntity.ok(exists);
     }
+
+    private static MediaType exportMediaType(ProductExportService.Format format) {
+        return switch (format) {
+            case BINARY -> MediaType.APPLICATION_OCTET_STREAM;
+            case CSV -> new MediaType("text", "csv", StandardCharsets.UTF_8);
+        };
+    }
+
+    private static String exportDisposition(ProductExportService.Format format) {
+        String filename = switch (format) {
+            case BINARY -> "products.bin";
+            case CSV -> "products.csv";
+        };
+        return ContentDisposition.attachment().filename(filename).build().toString();
+    }
+
+    // A stale If-Range means the client's partial copy is outdated, so the whole file is sent
+    private static boolean ifRangeMatches(HttpServletRequest request, String etag, long lastModified) {
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (ifRange == null) {
+            return true;
+        }
+        if (ifRange.startsWith("\"") || ifRange.startsWith("W/")) {
+            return ifRange.equals(etag);
+        }
+        try {
+            return request.getDateHeader(HttpHeaders.IF_RANGE) / 1000 == lastModified / 1000;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    private byte[] frameEvents(List<ProductEvent> batch, boolean sse) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(batch.size() * 128);
+        for (ProductEvent event : batch) {
+            if (sse) {
+                // The id is what EventSource sends back as Last-Event-ID when it reconnects
+                out.write(("id: " + event.offset() + "\nevent: product\ndata: ").getBytes(StandardCharsets.US_ASCII));
+                out.write(ndjsonWriter.writeValueAsBytes(event));
+                out.write('\n');
+            } else {
+                out.write(ndjsonWriter.writeValueAsBytes(event));
+            }
+            out.write('\n');
+        }
+        return out.toByteArray();
+    }
+
+    // Strong ETag: the version changes with every write to the row. A write-behind price that is
+    // not flushed yet has no version, so that response carries no ETag
+    private static ResponseEntity<Product> okWithVersionETag(Product product) {
+        if (product.getVersion() == null) {
+            return ResponseEntity.ok(product);
+        }
+        return ResponseEntity.ok().eTag("\"" + product.getVersion() + "\"").body(product);
+    }
+
+    private String changeTokenETag() {
+        return "\"c" + productService.getChangeToken() + "\"";
+    }
+
+    // Link: <same request, after=nextCursor>; rel="next" while the listing has more rows
+    private static ResponseEntity.BodyBuilder withNextLink(ResponseEntity.BodyBuilder response, Long nextCursor) {
+        if (nextCursor == null) {
+            return response;
+        }
+        String next = ServletUriComponentsBuilder.fromCurrentRequest()
+                .replaceQueryParam("after", nextCursor)
+                .toUriString();
+        return response.header(HttpHeaders.LINK, "<" + next + ">; rel=\"next\"");
+    }
+
+    /**
+     * Version named by an {@code If-Match} header; null when absent or {@code *}. Anything that is
+     * not a single strong version ETag maps to -1, which no row has, so the update fails with 412.
+     */
+    private static Long expectedVersion(String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank() || ifMatch.trim().equals("*")) {
+            return null;
+        }
+        String etag = ifMatch.trim();
+        if (etag.length() < 3 || !etag.startsWith("\"") || !etag.endsWith("\"")) {
+            return -1L;
+        }
+        try {
+            return Long.parseLong(etag.substring(1, etag.length() - 1));
+        } catch (NumberFormatException e) {
+            return -1L;
+        }
+    }
 }
\ No newline at end of file
@@ -0,0 +1,64 @@
+package uz.fido.ProductRestApiIntegrationTest.controller;
+
+import org.postgresql.util.PSQLException;
+import org.postgresql.util.ServerErrorMessage;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.method.annotation.MethodArgumentTypeMismatchException;
+import uz.fido.ProductRestApiIntegrationTest.exception.ProductNotFoundException;
+import uz.fido.ProductRestApiIntegrationTest.exception.ProductValidationException;
+import uz.fido.ProductRestApiIntegrationTest.exception.ProductVersionMismatchException;
+
+/**
+ * Status mapping for the expected failures of {@link ProductController}, so its handlers need no
+ * try/catch. Responses have no body, as before. Only dedicated exception types are mapped:
+ * anything else, including a stray {@link IllegalArgumentException}, is a real error and is
+ * left to Spring's default handling.
+ */
+@RestControllerAdvice(assignableTypes = ProductController.class)
+@Profile("!reactive")
+public class ProductExceptionHandler {
+
+    private static final String UNIQUE_VIOLATION = "23505";
+    private static final String UNIQUE_NAME_INDEX = "uq_products_name_lower";
+
+    @ExceptionHandler(ProductNotFoundException.class)
+    public ResponseEntity<Void> handleNotFound() {
+        return ResponseEntity.notFound().build();
+    }
+
+    @ExceptionHandler(ProductVersionMismatchException.class)
+    public ResponseEntity<Void> handleVersionMismatch() {
+        return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).build();
+    }
+
+    // A name already taken (ignoring case) under product.bulk.unique-names; any other integrity
+    // violation is a bug rather than a conflict, so it goes on to the default handling
+    @ExceptionHandler(DataIntegrityViolationException.class)
+    public ResponseEntity<Void> handleConflict(DataIntegrityViolationException e) {
+        if (e.getMostSpecificCause() instanceof PSQLException cause
+                && UNIQUE_VIOLATION.equals(cause.getSQLState())) {
+            ServerErrorMessage serverError = cause.getServerErrorMessage();
+            if (serverError != null && UNIQUE_NAME_INDEX.equals(serverError.getConstraint())) {
+                return ResponseEntity.status(HttpStatus.CONFLICT).build();
+            }
+        }
+        throw e;
+    }
+
+    // Invalid PATCH values, unknown fields, sorts or export formats
+    @ExceptionHandler(ProductValidationException.class)
+    public ResponseEntity<Void> handleInvalidProduct() {
+        return ResponseEntity.badRequest().build();
+    }
+
+    // A query or path parameter of the wrong type, such as a non-numeric id or cursor
+    @ExceptionHandler(MethodArgumentTypeMismatchException.class)
+    public ResponseEntity<Void> handleTypeMismatch() {
+        return ResponseEntity.badRequest().build();
+    }
+}
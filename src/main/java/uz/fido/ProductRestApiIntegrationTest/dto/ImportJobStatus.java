@@ -0,0 +1,37 @@
+package uz.fido.ProductRestApiIntegrationTest.dto;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Progress of an async bulk import. {@code rowsPerSecond} covers committed and rejected rows
+ * since the job started; {@code errors} is capped, so it may hold fewer entries than
+ * {@code rejectedRows}.
+ */
+public record ImportJobStatus(long id,
+                              State status,
+                              long totalRows,
+                              long committedRows,
+                              long rejectedRows,
+                              int committedChunks,
+                              int totalChunks,
+                              double rowsPerSecond,
+                              Instant createdAt,
+                              Instant startedAt,
+                              Instant finishedAt,
+                              String error,
+                              List<ChunkError> errors) {
+
+    public enum State {
+        QUEUED,
+        RUNNING,
+        COMPLETED,
+        FAILED
+    }
+
+    /**
+     * {@code row} is the zero-based index in the submitted array, or null when the whole chunk failed.
+     */
+    public record ChunkError(int chunk, Long row, String message) {
+    }
+}
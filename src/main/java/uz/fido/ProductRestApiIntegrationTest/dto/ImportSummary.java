@@ -0,0 +1,14 @@
+package uz.fido.ProductRestApiIntegrationTest.dto;
+
+import java.util.List;
+
+/**
+ * Outcome of a streamed import. {@code errors} is capped, so it may hold fewer entries
+ * than {@code rejected}. {@code skipped} counts valid rows whose name already existed
+ * (only with product.bulk.unique-names).
+ */
+public record ImportSummary(long accepted, long rejected, long skipped, List<RowError> errors) {
+
+    public record RowError(long line, String message) {
+    }
+}
@@ -0,0 +1,22 @@
+package uz.fido.ProductRestApiIntegrationTest.dto;
+
+import java.time.Instant;
+
+/**
+ * One product change from the event stream. {@code name}, {@code price} and {@code version}
+ * are the product's state after the change; they are null for {@code DELETE}.
+ */
+public record ProductEvent(long offset,
+                           Type type,
+                           long productId,
+                           String name,
+                           Double price,
+                           Long version,
+                           Instant occurredAt) {
+
+    public enum Type {
+        CREATE,
+        UPDATE,
+        DELETE
+    }
+}
@@ -0,0 +1,14 @@
+package uz.fido.ProductRestApiIntegrationTest.dto;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Keyset page holding only the requested columns of each product; see {@link ProductPage}.
+ */
+public record ProductFieldsPage(List<Map<String, Object>> items, Long nextCursor, Double nextPriceCursor) {
+
+    public ProductFieldsPage(List<Map<String, Object>> items, Long nextCursor) {
+        this(items, nextCursor, null);
+    }
+}
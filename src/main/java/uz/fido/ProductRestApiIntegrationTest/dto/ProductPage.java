@@ -0,0 +1,17 @@
+package uz.fido.ProductRestApiIntegrationTest.dto;
+
+import uz.fido.ProductRestApiIntegrationTest.model.Product;
+
+import java.util.List;
+
+/**
+ * One keyset page of products. {@code nextCursor} is the id to pass as {@code after}
+ * for the following page, or {@code null} when there are no more rows. Price-sorted pages
+ * also carry {@code nextPriceCursor}, to be passed as {@code afterPrice}.
+ */
+public record ProductPage(List<Product> items, Long nextCursor, Double nextPriceCursor) {
+
+    public ProductPage(List<Product> items, Long nextCursor) {
+        this(items, nextCursor, null);
+    }
+}
@@ -0,0 +1,12 @@
+package uz.fido.ProductRestApiIntegrationTest.dto;
+
+import uz.fido.ProductRestApiIntegrationTest.model.Product;
+
+import java.util.List;
+
+/**
+ * One page of name search results, best match first. Request the next page with
+ * {@code offset + limit} while {@code hasMore} is true.
+ */
+public record ProductSearchResult(List<Product> items, int offset, int limit, boolean hasMore) {
+}
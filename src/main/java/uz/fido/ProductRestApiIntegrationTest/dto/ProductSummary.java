@@ -0,0 +1,8 @@
+package uz.fido.ProductRestApiIntegrationTest.dto;
+
+/**
+ * Read-only projection of a product row, built by a constructor expression so it never
+ * enters the persistence context.
+ */
+public record ProductSummary(Long id, String name, Double price, Long version) {
+}
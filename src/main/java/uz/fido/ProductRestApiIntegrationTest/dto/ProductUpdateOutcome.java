@@ -0,0 +1,25 @@
+package uz.fido.ProductRestApiIntegrationTest.dto;
+
+/**
+ * Result of one entry of a bulk update, reported in request order.
+ */
+public record ProductUpdateOutcome(Long id, Status status, String message) {
+
+    public enum Status {
+        UPDATED,
+        NOT_FOUND,
+        INVALID
+    }
+
+    public static ProductUpdateOutcome updated(Long id) {
+        return new ProductUpdateOutcome(id, Status.UPDATED, null);
+    }
+
+    public static ProductUpdateOutcome notFound(Long id) {
+        return new ProductUpdateOutcome(id, Status.NOT_FOUND, "Product not found with id: " + id);
+    }
+
+    public static ProductUpdateOutcome invalid(Long id, String message) {
+        return new ProductUpdateOutcome(id, Status.INVALID, message);
+    }
+}
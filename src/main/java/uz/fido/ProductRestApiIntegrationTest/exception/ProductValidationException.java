@@ -0,0 +1,12 @@
+package uz.fido.ProductRestApiIntegrationTest.exception;
+
+/**
+ * Client input the product rules reject, answered with 400. Stackless like
+ * {@link ProductNotFoundException}.
+ */
+public class ProductValidationException extends RuntimeException {
+
+    public ProductValidationException(String message) {
+        super(message, null, false, false);
+    }
+}
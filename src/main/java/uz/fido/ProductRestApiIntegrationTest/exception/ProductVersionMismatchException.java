@@ -0,0 +1,16 @@
+package uz.fido.ProductRestApiIntegrationTest.exception;
+
+/**
+ * A conditional write that lost to a concurrent one, answered with 412. Stackless like
+ * {@link ProductNotFoundException}.
+ */
+public class ProductVersionMismatchException extends RuntimeException {
+
+    public ProductVersionMismatchException(String message) {
+        super(message, null, false, false);
+    }
+
+    public ProductVersionMismatchException(String message, Throwable cause) {
+        super(message, cause, false, false);
+    }
+}
@@ -0,0 +1,52 @@
+package uz.fido.ProductRestApiIntegrationTest.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.Ordered;
+
+import javax.sql.DataSource;
+
+/**
+ * Per-request SQL statement counts for the servlet stack. Endpoint timers come from
+ * {@code http.server.requests}, service method timers from {@code @Timed}, pool wait from
+ * {@code hikaricp.connections.acquire} and, with {@code product.metrics.hibernate-statistics} on,
+ * Hibernate statistics from {@code hibernate.*}.
+ */
+@Configuration(proxyBeanMethods = false)
+@Profile("!reactive")
+public class MetricsConfig {
+
+    @Bean
+    static BeanPostProcessor statementCountingDataSourcePostProcessor() {
+        return new OrderedDataSourcePostProcessor();
+    }
+
+    @Bean
+    FilterRegistrationBean<SqlStatementMetricsFilter> sqlStatementMetricsFilter(MeterRegistry meterRegistry) {
+        FilterRegistrationBean<SqlStatementMetricsFilter> registration =
+                new FilterRegistrationBean<>(new SqlStatementMetricsFilter(meterRegistry));
+        registration.addUrlPatterns("/api/*");
+        return registration;
+    }
+
+    // Runs after the virtual-thread limiter so the counter wraps the outermost DataSource
+    private static final class OrderedDataSourcePostProcessor implements BeanPostProcessor, Ordered {
+
+        @Override
+        public Object postProcessAfterInitialization(Object bean, String beanName) {
+            if (bean instanceof DataSource && !(bean instanceof StatementCountingDataSource)) {
+                return new StatementCountingDataSource((DataSource) bean);
+            }
+            return bean;
+        }
+
+        @Override
+        public int getOrder() {
+            return Ordered.LOWEST_PRECEDENCE;
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package uz.fido.ProductRestApiIntegrationTest.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Records {@code product.sql.statements} per request, tagged with the method, the matched URI
+ * template and the status. Work handed off to another thread (streamed responses) is not included.
+ */
+public class SqlStatementMetricsFilter extends OncePerRequestFilter {
+
+    private final MeterRegistry meterRegistry;
+    // Registered once per key, so a request costs a map lookup rather than a builder and a registry lookup
+    private final Map<SummaryKey, DistributionSummary> summaries = new ConcurrentHashMap<>();
+
+    public SqlStatementMetricsFilter(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        int[] previous = StatementCountingDataSource.start();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            int statements = StatementCountingDataSource.stop(previous);
+            Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+            SummaryKey key = new SummaryKey(request.getMethod(),
+                    pattern != null ? pattern.toString() : "UNKNOWN", response.getStatus());
+            DistributionSummary summary = summaries.get(key);
+            if (summary == null) {
+                summary = summaries.computeIfAbsent(key, this::register);
+            }
+            summary.record(statements);
+        }
+    }
+
+    private DistributionSummary register(SummaryKey key) {
+        return DistributionSummary.builder("product.sql.statements")
+                .description("SQL statements prepared while handling one request")
+                .tag("method", key.method())
+                .tag("uri", key.uri())
+                .tag("status", Integer.toString(key.status()))
+                .register(meterRegistry);
+    }
+
+    private record SummaryKey(String method, String uri, int status) {
+    }
+}
@@ -0,0 +1,75 @@
+package uz.fido.ProductRestApiIntegrationTest.metrics;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Set;
+
+/**
+ * Counts statements prepared on the calling thread while a counter is open. Covers Hibernate,
+ * {@code JdbcTemplate} and COPY alike, since all of them go through this DataSource.
+ */
+public class StatementCountingDataSource extends DelegatingDataSource {
+
+    private static final Set<String> STATEMENT_FACTORIES = Set.of("prepareStatement", "prepareCall", "createStatement");
+    private static final ThreadLocal<int[]> COUNTER = new ThreadLocal<>();
+
+    public StatementCountingDataSource(DataSource targetDataSource) {
+        super(targetDataSource);
+    }
+
+    /**
+     * Starts counting for the current thread; returns the previous counter for {@link #stop}.
+     */
+    public static int[] start() {
+        int[] previous = COUNTER.get();
+        COUNTER.set(new int[1]);
+        return previous;
+    }
+
+    /**
+     * Returns the statements counted since {@link #start} and restores the previous counter.
+     */
+    public static int stop(int[] previous) {
+        int[] counter = COUNTER.get();
+        if (previous == null) {
+            COUNTER.remove();
+        } else {
+            COUNTER.set(previous);
+        }
+        return counter == null ? 0 : counter[0];
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return counting(super.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return counting(super.getConnection(username, password));
+    }
+
+    private static Connection counting(Connection target) {
+        return (Connection) Proxy.newProxyInstance(
+                Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class},
+                (proxy, method, args) -> {
+                    if (STATEMENT_FACTORIES.contains(method.getName())) {
+                        int[] counter = COUNTER.get();
+                        if (counter != null) {
+                            counter[0]++;
+                        }
+                    }
+                    try {
+                        return method.invoke(target, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getTargetException();
+                    }
+                });
+    }
+}
@@ -30,6 +30,11 @@ public class Product {
     @Column(nullable = false)
     private Double price;
 
+    // Optimistic-locking version; also the product's ETag
+    @Version
+    @Column(nullable = false)
+    private Long version;
+
     public Product(String name, Double price) {
         this.name = name;
         this.price = price;
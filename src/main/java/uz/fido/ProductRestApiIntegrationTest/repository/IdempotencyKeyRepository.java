@@ -0,0 +1,87 @@
+package uz.fido.ProductRestApiIntegrationTest.repository;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Idempotency keys and their stored responses (db/migration/V7). Each statement commits on its
+ * own: a claim must be visible to other nodes while the request that holds it is still running.
+ */
+@Repository
+@Profile("!reactive")
+public class IdempotencyKeyRepository {
+
+    /**
+     * A completed request: the hash of what was sent, the response to replay and until when.
+     */
+    public record StoredResponse(byte[] fingerprint, int status, String contentType, String location, byte[] body,
+                                 Instant expiresAt) {
+    }
+
+    // Inserts a claim, or takes over a row whose lease or retention has run out
+    private static final String CLAIM_SQL = "INSERT INTO product_idempotency_keys (idempotency_key, claim_token, expires_at)"
+            + " VALUES (?, ?, now() + make_interval(secs => ?))"
+            + " ON CONFLICT (idempotency_key) DO UPDATE SET claim_token = EXCLUDED.claim_token,"
+            + " fingerprint = NULL, status = NULL, content_type = NULL, location = NULL, body = NULL,"
+            + " created_at = now(), expires_at = EXCLUDED.expires_at"
+            + " WHERE product_idempotency_keys.expires_at < now()"
+            + " RETURNING idempotency_key";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    public IdempotencyKeyRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Claims {@code key} for {@code lease} under {@code claimToken}; false when another request
+     * holds it or has completed with it.
+     */
+    public boolean claim(String key, UUID claimToken, Duration lease) {
+        return !jdbcTemplate.queryForList(CLAIM_SQL, String.class, key, claimToken, (double) lease.toSeconds()).isEmpty();
+    }
+
+    public Optional<StoredResponse> findCompleted(String key) {
+        List<StoredResponse> rows = jdbcTemplate.query("SELECT fingerprint, status, content_type, location, body, expires_at"
+                        + " FROM product_idempotency_keys"
+                        + " WHERE idempotency_key = ? AND status IS NOT NULL AND expires_at >= now()",
+                (rs, rowNum) -> new StoredResponse(rs.getBytes("fingerprint"), rs.getInt("status"),
+                        rs.getString("content_type"), rs.getString("location"), rs.getBytes("body"),
+                        rs.getObject("expires_at", OffsetDateTime.class).toInstant()),
+                key);
+        return rows.stream().findFirst();
+    }
+
+    /**
+     * Stores the response of a claimed key until its {@code expiresAt}. False when the claim was
+     * lost in the meantime, because the lease ran out and another request took the key over.
+     */
+    public boolean complete(String key, UUID claimToken, StoredResponse response) {
+        return jdbcTemplate.update("UPDATE product_idempotency_keys"
+                        + " SET fingerprint = ?, status = ?, content_type = ?, location = ?, body = ?, expires_at = ?"
+                        + " WHERE idempotency_key = ? AND claim_token = ? AND status IS NULL",
+                response.fingerprint(), response.status(), response.contentType(), response.location(),
+                response.body(), Timestamp.from(response.expiresAt()), key, claimToken) > 0;
+    }
+
+    // Drops an unfinished claim, so a retry runs the request again
+    public void release(String key, UUID claimToken) {
+        jdbcTemplate.update("DELETE FROM product_idempotency_keys"
+                + " WHERE idempotency_key = ? AND claim_token = ? AND status IS NULL", key, claimToken);
+    }
+
+    public int purgeExpired() {
+        return jdbcTemplate.update("DELETE FROM product_idempotency_keys WHERE expires_at < now()");
+    }
+}
@@ -0,0 +1,120 @@
+package uz.fido.ProductRestApiIntegrationTest.repository;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import uz.fido.ProductRestApiIntegrationTest.dto.ProductEvent;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Outbox and event log behind the product change stream (db/migration/V6). The {@code record*}
+ * methods must run in the transaction of the change they describe; {@link #relay} moves what
+ * has committed since into the log.
+ */
+@Repository
+@Profile("!reactive")
+public class ProductEventRepository {
+
+    private static final String EVENT_COLUMNS = "event_type, product_id, name, price, version, occurred_at";
+
+    // Serializes relays across instances, so offsets are handed out in commit order
+    private static final long RELAY_LOCK_KEY = 0x70726f645f65766eL;
+
+    private static final String RELAY_SQL = "WITH batch AS ("
+            + " DELETE FROM product_outbox WHERE id IN (SELECT id FROM product_outbox ORDER BY id LIMIT ?)"
+            + " RETURNING id, " + EVENT_COLUMNS + ")"
+            + " INSERT INTO product_events (event_offset, " + EVENT_COLUMNS + ")"
+            + " SELECT nextval('product_event_offset_seq'), " + EVENT_COLUMNS
+            + " FROM (SELECT * FROM batch ORDER BY id) ordered"
+            + " RETURNING event_offset";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    public ProductEventRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Records the current state of the given products, so it must run after the write itself.
+     */
+    public void recordChanges(ProductEvent.Type type, Collection<Long> productIds) {
+        if (productIds.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.update(connection -> {
+            PreparedStatement statement = connection.prepareStatement(
+                    "INSERT INTO product_outbox (event_type, product_id, name, price, version)"
+                            + " SELECT ?, id, name, price, version FROM products WHERE id = ANY (?) ORDER BY id");
+            statement.setString(1, type.name());
+            statement.setArray(2, connection.createArrayOf("bigint", productIds.toArray()));
+            return statement;
+        });
+    }
+
+    public void recordDeletes(Collection<Long> productIds) {
+        jdbcTemplate.batchUpdate("INSERT INTO product_outbox (event_type, product_id) VALUES ('DELETE', ?)",
+                productIds, productIds.size(), (ps, id) -> ps.setLong(1, id));
+    }
+
+    /**
+     * Records a {@code CREATE} for every product above {@code afterId} inserted by the current
+     * transaction, for bulk paths such as {@code COPY} that do not return ids.
+     */
+    public void recordCreatedInCurrentTransaction(long afterId) {
+        jdbcTemplate.update("INSERT INTO product_outbox (event_type, product_id, name, price, version)"
+                + " SELECT 'CREATE', id, name, price, version FROM products"
+                + " WHERE id > ? AND xmin = pg_current_xact_id()::xid ORDER BY id", afterId);
+    }
+
+    public long maxProductId() {
+        Long id = jdbcTemplate.queryForObject("SELECT COALESCE(max(id), 0) FROM products", Long.class);
+        return id == null ? 0L : id;
+    }
+
+    /**
+     * Moves up to {@code limit} committed outbox rows into the event log and returns the highest
+     * offset assigned, or 0 when there was nothing to move. Must run in its own transaction.
+     */
+    public long relay(int limit) {
+        jdbcTemplate.queryForList("SELECT pg_advisory_xact_lock(?)", RELAY_LOCK_KEY);
+        List<Long> offsets = jdbcTemplate.queryForList(RELAY_SQL, Long.class, limit);
+        return offsets.stream().mapToLong(Long::longValue).max().orElse(0L);
+    }
+
+    public List<ProductEvent> findAfter(long offset, int limit) {
+        return jdbcTemplate.query("SELECT event_offset, " + EVENT_COLUMNS + " FROM product_events"
+                        + " WHERE event_offset > ? ORDER BY event_offset LIMIT ?",
+                (rs, rowNum) -> toEvent(rs), offset, limit);
+    }
+
+    // Offset of the newest committed event; a consumer starting here receives only later changes
+    public long head() {
+        Long offset = jdbcTemplate.queryForObject("SELECT COALESCE(max(event_offset), 0) FROM product_events", Long.class);
+        return offset == null ? 0L : offset;
+    }
+
+    public int purgeOlderThan(Duration retention) {
+        return jdbcTemplate.update("DELETE FROM product_events WHERE occurred_at < now() - make_interval(secs => ?)",
+                (double) retention.toSeconds());
+    }
+
+    private static ProductEvent toEvent(ResultSet rs) throws SQLException {
+        return new ProductEvent(
+                rs.getLong("event_offset"),
+                ProductEvent.Type.valueOf(rs.getString("event_type")),
+                rs.getLong("product_id"),
+                rs.getString("name"),
+                rs.getObject("price", Double.class),
+                rs.getObject("version", Long.class),
+                rs.getObject("occurred_at", OffsetDateTime.class).toInstant());
+    }
+}
@@ -0,0 +1,53 @@
+package uz.fido.ProductRestApiIntegrationTest.repository;
+
+import uz.fido.ProductRestApiIntegrationTest.exception.ProductValidationException;
+
+import java.util.EnumSet;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Product columns that can be selected with {@code ?fields=}. {@link #ID} is always read,
+ * since keyset paging continues from it.
+ */
+public enum ProductField {
+    ID("id"),
+    NAME("name"),
+    PRICE("price");
+
+    private final String attribute;
+
+    ProductField(String attribute) {
+        this.attribute = attribute;
+    }
+
+    public String attribute() {
+        return attribute;
+    }
+
+    /**
+     * Parses a comma-separated list such as {@code "name,price"}.
+     *
+     * @throws ProductValidationException for an unknown field name
+     */
+    public static Set<ProductField> parse(String fields) {
+        Set<ProductField> selected = EnumSet.of(ID);
+        for (String field : fields.split(",")) {
+            String name = field.trim().toLowerCase(Locale.ROOT);
+            if (name.isEmpty()) {
+                continue;
+            }
+            selected.add(fromAttribute(name));
+        }
+        return selected;
+    }
+
+    private static ProductField fromAttribute(String name) {
+        for (ProductField field : values()) {
+            if (field.attribute.equals(name)) {
+                return field;
+            }
+        }
+        throw new ProductValidationException("Unknown product field: " + name);
+    }
+}
@@ -0,0 +1,26 @@
+package uz.fido.ProductRestApiIntegrationTest.repository;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Reads only selected product columns as plain maps, outside the persistence context.
+ */
+public interface ProductFieldRepository {
+
+    /**
+     * At most {@code limit} rows with {@code id > afterId} in id order. Map keys follow
+     * {@link ProductField} order.
+     */
+    List<Map<String, Object>> findFields(Set<ProductField> fields, long afterId, int limit);
+
+    /**
+     * Rows priced within [{@code minPrice}, {@code maxPrice}] in (price, id) order, or the reverse
+     * when {@code descending}, continuing after ({@code afterPrice}, {@code afterId}) unless
+     * {@code afterPrice} is null. Bounded by the (price, id) index like the price-sorted pages of
+     * {@code ProductRepository}.
+     */
+    List<Map<String, Object>> findFieldsByPrice(Set<ProductField> fields, double minPrice, double maxPrice,
+                                                Double afterPrice, long afterId, boolean descending, int limit);
+}
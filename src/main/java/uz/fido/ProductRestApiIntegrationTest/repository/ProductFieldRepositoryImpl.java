@@ -0,0 +1,90 @@
+package uz.fido.ProductRestApiIntegrationTest.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Selection;
+import uz.fido.ProductRestApiIntegrationTest.model.Product;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+class ProductFieldRepositoryImpl implements ProductFieldRepository {
+
+    private final EntityManager entityManager;
+
+    ProductFieldRepositoryImpl(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    @Override
+    public List<Map<String, Object>> findFields(Set<ProductField> fields, long afterId, int limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = cb.createTupleQuery();
+        Root<Product> product = query.from(Product.class);
+
+        query.multiselect(selections(fields, product))
+                .where(cb.greaterThan(product.<Long>get("id"), afterId))
+                .orderBy(cb.asc(product.get("id")));
+
+        return toRows(fields, entityManager.createQuery(query).setMaxResults(limit).getResultList());
+    }
+
+    @Override
+    public List<Map<String, Object>> findFieldsByPrice(Set<ProductField> fields, double minPrice, double maxPrice,
+                                                       Double afterPrice, long afterId, boolean descending, int limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = cb.createTupleQuery();
+        Root<Product> product = query.from(Product.class);
+        Path<Double> price = product.get("price");
+        Path<Long> id = product.get("id");
+
+        List<Predicate> predicates = new ArrayList<>(4);
+        predicates.add(cb.between(price, minPrice, maxPrice));
+        if (afterPrice != null) {
+            // (price, id) past the cursor; the first predicate keeps the index range tight
+            if (descending) {
+                predicates.add(cb.lessThanOrEqualTo(price, afterPrice));
+                predicates.add(cb.or(cb.lessThan(price, afterPrice), cb.lessThan(id, afterId)));
+            } else {
+                predicates.add(cb.greaterThanOrEqualTo(price, afterPrice));
+                predicates.add(cb.or(cb.greaterThan(price, afterPrice), cb.greaterThan(id, afterId)));
+            }
+        }
+
+        query.multiselect(selections(fields, product))
+                .where(predicates.toArray(new Predicate[0]))
+                .orderBy(descending
+                        ? List.of(cb.desc(price), cb.desc(id))
+                        : List.of(cb.asc(price), cb.asc(id)));
+
+        return toRows(fields, entityManager.createQuery(query).setMaxResults(limit).getResultList());
+    }
+
+    private static List<Selection<?>> selections(Set<ProductField> fields, Root<Product> product) {
+        List<Selection<?>> selections = new ArrayList<>(fields.size());
+        for (ProductField field : fields) {
+            selections.add(product.get(field.attribute()).alias(field.attribute()));
+        }
+        return selections;
+    }
+
+    private static List<Map<String, Object>> toRows(Set<ProductField> fields, List<Tuple> tuples) {
+        List<Map<String, Object>> rows = new ArrayList<>(tuples.size());
+        for (Tuple tuple : tuples) {
+            Map<String, Object> row = new LinkedHashMap<>();
+            for (ProductField field : fields) {
+                row.put(field.attribute(), tuple.get(field.attribute()));
+            }
+            rows.add(row);
+        }
+        return rows;
+    }
+}
@@ -0,0 +1,171 @@
+package uz.fido.ProductRestApiIntegrationTest.repository;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import uz.fido.ProductRestApiIntegrationTest.dto.ImportJobStatus;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Job rows behind async bulk imports (db/migration/V5). A job is owned by whoever last
+ * claimed it; chunk progress only moves forward through {@link #recordChunk}, which commits
+ * together with the chunk's products.
+ */
+@Repository
+@Profile("!reactive")
+public class ProductImportJobRepository {
+
+    private static final String STATUS_COLUMNS = "id, status, total_rows, chunk_size, committed_chunks,"
+            + " committed_rows, rejected_rows, error, created_at, started_at, heartbeat_at, finished_at";
+
+    /**
+     * The state a worker needs to continue a job: chunks before {@code committedChunks} are done.
+     */
+    public record ClaimedJob(long id, byte[] payload, int chunkSize, int committedChunks) {
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    public ProductImportJobRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public long create(byte[] payload, long totalRows, int chunkSize) {
+        Long id = jdbcTemplate.queryForObject("INSERT INTO product_import_jobs (status, payload, total_rows, chunk_size)"
+                        + " VALUES ('QUEUED', ?, ?, ?) RETURNING id",
+                Long.class, payload, totalRows, chunkSize);
+        return id == null ? 0L : id;
+    }
+
+    /**
+     * Takes ownership of a queued job, or of a running one whose owner stopped heart-beating
+     * for {@code staleAfter}. Empty when another worker holds it or it has finished.
+     */
+    public Optional<ClaimedJob> claim(long id, Duration staleAfter) {
+        List<ClaimedJob> claimed = jdbcTemplate.query("UPDATE product_import_jobs"
+                        + " SET status = 'RUNNING', started_at = COALESCE(started_at, now()), heartbeat_at = now()"
+                        + " WHERE id = ? AND (status = 'QUEUED'"
+                        + " OR (status = 'RUNNING' AND heartbeat_at < now() - make_interval(secs => ?)))"
+                        + " RETURNING id, payload, chunk_size, committed_chunks",
+                (rs, rowNum) -> new ClaimedJob(rs.getLong("id"), rs.getBytes("payload"),
+                        rs.getInt("chunk_size"), rs.getInt("committed_chunks")),
+                id, (double) staleAfter.toSeconds());
+        return claimed.stream().findFirst();
+    }
+
+    public List<Long> findClaimable(Duration staleAfter, int limit) {
+        return jdbcTemplate.queryForList("SELECT id FROM product_import_jobs"
+                        + " WHERE status = 'QUEUED'"
+                        + " OR (status = 'RUNNING' AND heartbeat_at < now() - make_interval(secs => ?))"
+                        + " ORDER BY id LIMIT ?",
+                Long.class, (double) staleAfter.toSeconds(), limit);
+    }
+
+    /**
+     * Marks {@code chunk} as committed and doubles as the heartbeat. Returns false when the
+     * job is no longer at that chunk (another worker took it over), so the caller must roll back.
+     */
+    public boolean recordChunk(long id, int chunk, long committedRows, long rejectedRows,
+                               List<ImportJobStatus.ChunkError> errors) {
+        int updated = jdbcTemplate.update("UPDATE product_import_jobs"
+                        + " SET committed_chunks = committed_chunks + 1, committed_rows = committed_rows + ?,"
+                        + " rejected_rows = rejected_rows + ?, heartbeat_at = now()"
+                        + " WHERE id = ? AND status = 'RUNNING' AND committed_chunks = ?",
+                committedRows, rejectedRows, id, chunk);
+        if (updated == 0) {
+            return false;
+        }
+
+        if (!errors.isEmpty()) {
+            jdbcTemplate.batchUpdate("INSERT INTO product_import_job_errors (job_id, chunk_index, row_index, message)"
+                            + " VALUES (?, ?, ?, ?)", errors, errors.size(),
+                    (ps, error) -> {
+                        ps.setLong(1, id);
+                        ps.setInt(2, error.chunk());
+                        if (error.row() == null) {
+                            ps.setNull(3, Types.BIGINT);
+                        } else {
+                            ps.setLong(3, error.row());
+                        }
+                        ps.setString(4, error.message());
+                    });
+        }
+        return true;
+    }
+
+    public int countErrors(long id) {
+        Integer count = jdbcTemplate.queryForObject(
+                "SELECT count(*) FROM product_import_job_errors WHERE job_id = ?", Integer.class, id);
+        return count == null ? 0 : count;
+    }
+
+    // The payload is only needed to resume, so it is dropped as soon as the job ends
+    public void complete(long id) {
+        jdbcTemplate.update("UPDATE product_import_jobs SET status = 'COMPLETED', payload = NULL, finished_at = now()"
+                + " WHERE id = ? AND status = 'RUNNING'", id);
+    }
+
+    public void fail(long id, String error) {
+        jdbcTemplate.update("UPDATE product_import_jobs SET status = 'FAILED', payload = NULL, error = ?, finished_at = now()"
+                + " WHERE id = ? AND status = 'RUNNING'", error, id);
+    }
+
+    public Optional<ImportJobStatus> findStatus(long id, int maxErrors) {
+        List<ImportJobStatus.ChunkError> errors = jdbcTemplate.query("SELECT chunk_index, row_index, message"
+                        + " FROM product_import_job_errors WHERE job_id = ? ORDER BY chunk_index, row_index LIMIT ?",
+                (rs, rowNum) -> new ImportJobStatus.ChunkError(rs.getInt("chunk_index"),
+                        rs.getObject("row_index", Long.class), rs.getString("message")),
+                id, maxErrors);
+
+        List<ImportJobStatus> statuses = jdbcTemplate.query(
+                "SELECT " + STATUS_COLUMNS + " FROM product_import_jobs WHERE id = ?",
+                (rs, rowNum) -> toStatus(rs, errors), id);
+        return statuses.stream().findFirst();
+    }
+
+    private static ImportJobStatus toStatus(ResultSet rs, List<ImportJobStatus.ChunkError> errors) throws SQLException {
+        long totalRows = rs.getLong("total_rows");
+        int chunkSize = rs.getInt("chunk_size");
+        long committedRows = rs.getLong("committed_rows");
+        long rejectedRows = rs.getLong("rejected_rows");
+        Instant startedAt = toInstant(rs, "started_at");
+        Instant finishedAt = toInstant(rs, "finished_at");
+        Instant lastProgress = finishedAt != null ? finishedAt : toInstant(rs, "heartbeat_at");
+
+        double rowsPerSecond = 0.0;
+        if (startedAt != null && lastProgress != null) {
+            long millis = Duration.between(startedAt, lastProgress).toMillis();
+            rowsPerSecond = millis <= 0 ? 0.0 : (committedRows + rejectedRows) * 1000.0 / millis;
+        }
+
+        return new ImportJobStatus(
+                rs.getLong("id"),
+                ImportJobStatus.State.valueOf(rs.getString("status")),
+                totalRows,
+                committedRows,
+                rejectedRows,
+                rs.getInt("committed_chunks"),
+                (int) ((totalRows + chunkSize - 1) / chunkSize),
+                rowsPerSecond,
+                toInstant(rs, "created_at"),
+                startedAt,
+                finishedAt,
+                rs.getString("error"),
+                errors);
+    }
+
+    private static Instant toInstant(ResultSet rs, String column) throws SQLException {
+        OffsetDateTime value = rs.getObject(column, OffsetDateTime.class);
+        return value == null ? null : value.toInstant();
+    }
+}
@@ -0,0 +1,305 @@
+package uz.fido.ProductRestApiIntegrationTest.repository;
+
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.SqlParameterValue;
+import org.springframework.stereotype.Repository;
+import uz.fido.ProductRestApiIntegrationTest.dto.ProductEvent;
+import uz.fido.ProductRestApiIntegrationTest.model.Product;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Set-based statements against the {@code products} table that Hibernate cannot batch
+ * on its own (the IDENTITY id generator disables JDBC insert batching).
+ */
+@Repository
+@Profile("!reactive")
+public class ProductJdbcRepository {
+
+    private static final String COPY_IN_SQL = "COPY products (name, price, version) FROM STDIN WITH (FORMAT csv)";
+    private static final String COPY_STAGING_SQL = "COPY product_import_staging (name, price, version) FROM STDIN WITH (FORMAT csv)";
+    private static final int COPY_BUFFER_CHARS = 64 * 1024;
+    private static final String COPY_OUT_CSV_SQL = "COPY products (id, name, price, version) TO STDOUT WITH (FORMAT csv, HEADER)";
+    private static final String COPY_OUT_BINARY_SQL = "COPY products (id, name, price, version) TO STDOUT WITH (FORMAT binary)";
+    private static final String UPDATE_SQL = "UPDATE products"
+            + " SET name = COALESCE(?, name), price = COALESCE(?, price), version = version + 1"
+            + " WHERE id = ?";
+    // A row that already holds the given values is left alone, version included
+    private static final String ANY_CHANGE = " AND (name <> COALESCE(?, name) OR price <> COALESCE(?, price))";
+    private static final String RETURNING_COLUMNS = " RETURNING id, name, price, version";
+    private static final int[] UPDATE_ARG_TYPES = {Types.VARCHAR, Types.DOUBLE, Types.BIGINT, Types.VARCHAR, Types.DOUBLE};
+    private static final int[] CONDITIONAL_UPDATE_ARG_TYPES =
+            {Types.VARCHAR, Types.DOUBLE, Types.BIGINT, Types.BIGINT, Types.VARCHAR, Types.DOUBLE};
+
+    // The rows of a bulk upsert that were inserted or changed, then those that already matched, in
+    // input order. A row that was already there is read from the statement's snapshot, so a
+    // re-sent batch costs this one statement; DISTINCT ON keeps the last entry per name
+    private static final String UPSERT_SQL_TAIL = ") AS v(ord, name, price)),"
+            + " latest AS (SELECT DISTINCT ON (lower(name)) name, price FROM input ORDER BY lower(name), ord DESC),"
+            + " upserted AS (INSERT INTO products (name, price, version)"
+            + " SELECT name, price, 0 FROM latest ORDER BY lower(name)"
+            + " ON CONFLICT (lower(name)) DO UPDATE SET price = EXCLUDED.price, version = products.version + 1"
+            + " WHERE products.price IS DISTINCT FROM EXCLUDED.price"
+            + " RETURNING id, name, price, version, CASE WHEN xmax = 0 THEN 'CREATE' ELSE 'UPDATE' END AS change),"
+            + " result AS (SELECT id, name, price, version, change FROM upserted"
+            + " UNION ALL SELECT p.id, p.name, p.price, p.version, NULL FROM products p"
+            + " JOIN latest l ON lower(p.name) = lower(l.name)"
+            + " WHERE NOT EXISTS (SELECT 1 FROM upserted u WHERE u.id = p.id))"
+            + " SELECT i.ord, r.id, r.name, r.price, r.version, r.change"
+            + " FROM input i LEFT JOIN result r ON lower(r.name) = lower(i.name) ORDER BY i.ord";
+
+    private static final String COPY_NEW_NAMES_SQL = "INSERT INTO products (name, price, version)"
+            + " SELECT name, price, version FROM product_import_staging ORDER BY ctid"
+            + " ON CONFLICT (lower(name)) DO NOTHING";
+
+    /**
+     * A row of a bulk upsert; {@code change} is null when the product already existed with that price.
+     */
+    public record UpsertedRow(Product product, ProductEvent.Type change) {
+    }
+
+    static final RowMapper<Product> PRODUCT_ROW_MAPPER = (rs, rowNum) ->
+            new Product(rs.getLong("id"), rs.getString("name"), rs.getDouble("price"), rs.getLong("version"));
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    public ProductJdbcRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Inserts all rows with a single multi-row {@code INSERT ... RETURNING} and returns
+     * them with their generated ids, in input order. Callers bound the chunk size.
+     */
+    public List<Product> insertAll(List<Product> products) {
+        if (products.isEmpty()) {
+            return List.of();
+        }
+
+        StringBuilder sql = new StringBuilder("INSERT INTO products (name, price, version) VALUES ");
+        Object[] args = new Object[products.size() * 2];
+        for (int i = 0; i < products.size(); i++) {
+            Product product = products.get(i);
+            sql.append(i == 0 ? "(?, ?, 0)" : ", (?, ?, 0)");
+            args[i * 2] = product.getName();
+            args[i * 2 + 1] = product.getPrice();
+        }
+        sql.append(RETURNING_COLUMNS);
+
+        return jdbcTemplate.query(sql.toString(), PRODUCT_ROW_MAPPER, args);
+    }
+
+    /**
+     * Inserts products whose name (ignoring case) is new and sets the price of those that exist,
+     * with one {@code INSERT ... ON CONFLICT} against the unique index on {@code lower(name)}
+     * (product.bulk.unique-names). Returns a row per input, in input order; entries repeating a
+     * name all map to that name's product. Callers bound the chunk size.
+     */
+    public List<UpsertedRow> upsertAll(List<Product> products) {
+        if (products.isEmpty()) {
+            return List.of();
+        }
+
+        StringBuilder sql = new StringBuilder("WITH input AS (SELECT * FROM (VALUES ");
+        Object[] args = new Object[products.size() * 2];
+        for (int i = 0; i < products.size(); i++) {
+            Product product = products.get(i);
+            sql.append(i == 0 ? "" : ", ").append('(').append(i).append(", CAST(? AS varchar), CAST(? AS double precision))");
+            args[i * 2] = product.getName();
+            args[i * 2 + 1] = product.getPrice();
+        }
+        sql.append(UPSERT_SQL_TAIL);
+
+        UpsertedRow[] rows = new UpsertedRow[products.size()];
+        jdbcTemplate.query(sql.toString(), rs -> {
+            long id = rs.getLong("id");
+            if (!rs.wasNull()) {
+                String change = rs.getString("change");
+                rows[rs.getInt("ord")] = new UpsertedRow(PRODUCT_ROW_MAPPER.mapRow(rs, 0),
+                        change == null ? null : ProductEvent.Type.valueOf(change));
+            }
+        }, args);
+
+        // A name inserted by a concurrent transaction after this statement's snapshot: read it again
+        for (int i = 0; i < rows.length; i++) {
+            if (rows[i] == null) {
+                Product existing = jdbcTemplate.queryForObject(
+                        "SELECT id, name, price, version FROM products WHERE lower(name) = lower(?)",
+                        PRODUCT_ROW_MAPPER, products.get(i).getName());
+                rows[i] = new UpsertedRow(existing, null);
+            }
+        }
+        return Arrays.asList(rows);
+    }
+
+    /**
+     * Ids of the products whose names match the given ones ignoring case, through the
+     * {@code lower(name)} index. Callers bound the number of names.
+     */
+    public List<Long> findIdsByNames(List<String> names) {
+        if (names.isEmpty()) {
+            return List.of();
+        }
+
+        StringBuilder sql = new StringBuilder("SELECT id FROM products WHERE lower(name) IN (");
+        for (int i = 0; i < names.size(); i++) {
+            sql.append(i == 0 ? "lower(?)" : ", lower(?)");
+        }
+        sql.append(')');
+
+        return jdbcTemplate.queryForList(sql.toString(), Long.class, names.toArray());
+    }
+
+    /**
+     * Applies the non-null fields in one round trip, bumps the version and returns the
+     * updated row. Empty when no row has that id, or when the row already holds those values
+     * and nothing was written.
+     */
+    public Optional<Product> update(long id, String name, Double price) {
+        // Explicit SQL types so null arguments do not cost a parameter-metadata lookup
+        List<Product> rows = jdbcTemplate.query(UPDATE_SQL + ANY_CHANGE + RETURNING_COLUMNS,
+                new Object[]{name, price, id, name, price}, UPDATE_ARG_TYPES, PRODUCT_ROW_MAPPER);
+        return rows.stream().findFirst();
+    }
+
+    /**
+     * Like {@link #update(long, String, Double)}, but only when the row is still at
+     * {@code expectedVersion}; empty when the id is missing, the version has moved on or
+     * nothing changes.
+     */
+    public Optional<Product> updateIfVersion(long id, String name, Double price, long expectedVersion) {
+        List<Product> rows = jdbcTemplate.query(UPDATE_SQL + " AND version = ?" + ANY_CHANGE + RETURNING_COLUMNS,
+                new Object[]{name, price, id, expectedVersion, name, price}, CONDITIONAL_UPDATE_ARG_TYPES,
+                PRODUCT_ROW_MAPPER);
+        return rows.stream().findFirst();
+    }
+
+    /**
+     * Applies every change with one set-based {@code UPDATE ... FROM (VALUES ...)} and returns
+     * the ids that matched a row. Null fields keep their current value.
+     */
+    public Set<Long> updateAll(Map<Long, Product> changesById) {
+        if (changesById.isEmpty()) {
+            return Set.of();
+        }
+
+        StringBuilder sql = new StringBuilder("UPDATE products p")
+                .append(" SET name = COALESCE(v.name, p.name), price = COALESCE(v.price, p.price),")
+                .append(" version = p.version + 1")
+                .append(" FROM (VALUES ");
+        Object[] args = new Object[changesById.size() * 3];
+        int i = 0;
+        for (Map.Entry<Long, Product> entry : changesById.entrySet()) {
+            sql.append(i == 0 ? "" : ", ").append("(CAST(? AS bigint), CAST(? AS varchar), CAST(? AS double precision))");
+            args[i * 3] = new SqlParameterValue(Types.BIGINT, entry.getKey());
+            args[i * 3 + 1] = new SqlParameterValue(Types.VARCHAR, entry.getValue().getName());
+            args[i * 3 + 2] = new SqlParameterValue(Types.DOUBLE, entry.getValue().getPrice());
+            i++;
+        }
+        sql.append(") AS v(id, name, price) WHERE p.id = v.id RETURNING p.id");
+
+        return new HashSet<>(jdbcTemplate.queryForList(sql.toString(), Long.class, args));
+    }
+
+    public int deleteById(long id) {
+        return jdbcTemplate.update("DELETE FROM products WHERE id = ?", id);
+    }
+
+    /**
+     * Streams rows into {@code products} with {@code COPY FROM STDIN}, pulling them from the
+     * iterator one at a time and sending them in bounded buffers. Joins the current
+     * transaction's connection and returns the number of rows copied.
+     */
+    public long copyIn(Iterator<Product> products) {
+        return copyIn(products, COPY_IN_SQL);
+    }
+
+    private long copyIn(Iterator<Product> products, String copySql) {
+        Long copied = jdbcTemplate.execute((ConnectionCallback<Long>) connection -> {
+            CopyIn copyIn = connection.unwrap(PGConnection.class).getCopyAPI().copyIn(copySql);
+            try {
+                StringBuilder buffer = new StringBuilder(COPY_BUFFER_CHARS + 512);
+                while (products.hasNext()) {
+                    appendCsvRow(buffer, products.next());
+                    if (buffer.length() >= COPY_BUFFER_CHARS) {
+                        writeToCopy(copyIn, buffer);
+                    }
+                }
+                writeToCopy(copyIn, buffer);
+                return copyIn.endCopy();
+            } finally {
+                if (copyIn.isActive()) {
+                    copyIn.cancelCopy();
+                }
+            }
+        });
+        return copied == null ? 0L : copied;
+    }
+
+    /**
+     * Like {@link #copyIn}, but for a table with unique names: rows are copied into a staging
+     * table and moved with one {@code INSERT ... ON CONFLICT DO NOTHING}, so a name that already
+     * exists (or repeats within the import) is skipped instead of failing the import. Returns the
+     * number of products inserted.
+     */
+    public long copyInNewNames(Iterator<Product> products) {
+        jdbcTemplate.execute("CREATE TEMPORARY TABLE IF NOT EXISTS product_import_staging"
+                + " (name VARCHAR(255), price DOUBLE PRECISION, version BIGINT) ON COMMIT DELETE ROWS");
+        copyIn(products, COPY_STAGING_SQL);
+        return jdbcTemplate.update(COPY_NEW_NAMES_SQL);
+    }
+
+    /**
+     * Writes every product to {@code out} with {@code COPY TO STDOUT}, as CSV with a header line or
+     * in PostgreSQL's binary COPY format. The server's output is passed through as it arrives, in
+     * table order; no rows are mapped. Joins the current transaction's connection and returns the
+     * number of rows written.
+     */
+    public long copyOut(OutputStream out, boolean binary) {
+        Long copied = jdbcTemplate.execute((ConnectionCallback<Long>) connection -> {
+            try {
+                return connection.unwrap(PGConnection.class).getCopyAPI()
+                        .copyOut(binary ? COPY_OUT_BINARY_SQL : COPY_OUT_CSV_SQL, out);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        return copied == null ? 0L : copied;
+    }
+
+    private static void appendCsvRow(StringBuilder buffer, Product product) {
+        buffer.append('"')
+                .append(product.getName().replace("\"", "\"\""))
+                .append("\",")
+                .append(product.getPrice())
+                .append(",0\n");
+    }
+
+    private static void writeToCopy(CopyIn copyIn, StringBuilder buffer) throws SQLException {
+        if (buffer.isEmpty()) {
+            return;
+        }
+        byte[] bytes = buffer.toString().getBytes(StandardCharsets.UTF_8);
+        copyIn.writeToCopy(bytes, 0, bytes.length);
+        buffer.setLength(0);
+    }
+}
@@ -1,17 +1,91 @@
 package uz.fido.ProductRestApiIntegrationTest.repository;
 
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import uz.fido.ProductRestApiIntegrationTest.dto.ProductSummary;
 import uz.fido.ProductRestApiIntegrationTest.model.Product;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
-public interface ProductRepository extends JpaRepository<Product, Long> {
+public interface ProductRepository extends JpaRepository<Product, Long>, ProductFieldRepository {
 
-    // Additional query methods can be added here if needed
+    // Written against lower(name) so the functional indexes from db/migration/V2 apply;
+    // derived IgnoreCase queries would compare upper(name) instead. As in the derived query,
+    // %, _ and the escape character in the name match themselves
+    @Query("select p from Product p where lower(p.name) like lower(concat('%', ?#{escape([0])}, '%'))"
+            + " escape ?#{escapeCharacter()}")
     List<Product> findByNameContainingIgnoreCase(String name);
-    Optional<Product> findByNameIgnoreCase(String name);
-    boolean existsByNameIgnoreCase(String name);
-}
\ No newline at end of file
+
+    @Query("select p from Product p where lower(p.name) = lower(:name)")
+    Optional<Product> findByNameIgnoreCase(@Param("name") String name);
+
+    @Query("select case when count(p) > 0 then true else false end from Product p where lower(p.name) = lower(:name)")
+    boolean existsByNameIgnoreCase(@Param("name") String name);
+
+    // Ranked: exact name, then prefix matches, then by trigram similarity; pattern is pre-escaped
+    @Query(value = """
+            SELECT * FROM products
+            WHERE lower(name) LIKE :pattern
+            ORDER BY lower(name) = :term DESC,
+                     lower(name) LIKE :prefixPattern DESC,
+                     similarity(lower(name), :term) DESC,
+                     id
+            LIMIT :limit OFFSET :offset
+            """, nativeQuery = true)
+    List<Product> searchByName(@Param("term") String term,
+                               @Param("pattern") String pattern,
+                               @Param("prefixPattern") String prefixPattern,
+                               @Param("limit") int limit,
+                               @Param("offset") int offset);
+
+    @Query("select new uz.fido.ProductRestApiIntegrationTest.dto.ProductSummary(p.id, p.name, p.price, p.version)"
+            + " from Product p where p.id > ?1 order by p.id")
+    List<ProductSummary> findSummariesByIdGreaterThan(long afterId, Limit limit);
+
+    // Keyset page: rows strictly after the given id, walked through the primary key index
+    List<Product> findByIdGreaterThanOrderByIdAsc(Long id, Limit limit);
+
+    // Keyset pages over idx_products_price_id (db/migration/V3); row-value comparison keeps it one index range scan
+    @Query(value = """
+            SELECT * FROM products
+            WHERE price BETWEEN :minPrice AND :maxPrice
+              AND (price, id) > (:afterPrice, :afterId)
+            ORDER BY price, id
+            LIMIT :limit
+            """, nativeQuery = true)
+    List<Product> findPriceRangeAscending(@Param("minPrice") double minPrice,
+                                          @Param("maxPrice") double maxPrice,
+                                          @Param("afterPrice") double afterPrice,
+                                          @Param("afterId") long afterId,
+                                          @Param("limit") int limit);
+
+    @Query(value = """
+            SELECT * FROM products
+            WHERE price BETWEEN :minPrice AND :maxPrice
+              AND (price, id) < (:beforePrice, :beforeId)
+            ORDER BY price DESC, id DESC
+            LIMIT :limit
+            """, nativeQuery = true)
+    List<Product> findPriceRangeDescending(@Param("minPrice") double minPrice,
+                                           @Param("maxPrice") double maxPrice,
+                                           @Param("beforePrice") double beforePrice,
+                                           @Param("beforeId") long beforeId,
+                                           @Param("limit") int limit);
+
+    // Server-side cursor; must be consumed inside a transaction so PostgreSQL honours the fetch size
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("select p from Product p order by p.id")
+    Stream<Product> streamAllByOrderByIdAsc();
+}
@@ -0,0 +1,113 @@
+package uz.fido.ProductRestApiIntegrationTest.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+import uz.fido.ProductRestApiIntegrationTest.repository.IdempotencyKeyRepository;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Deduplication of writes sent with an {@code Idempotency-Key}. A key is claimed in the database
+ * before its request runs, so two concurrent retries cannot both execute it; the response is
+ * then stored for the ttl, and the most recent ones are also held in memory, so a retry is
+ * answered without a query.
+ */
+@Service
+@Profile("!reactive")
+public class IdempotencyService {
+
+    // Rough per-entry overhead beyond the body, for the memory bound
+    private static final int ENTRY_OVERHEAD_BYTES = 256;
+
+    private final IdempotencyKeyRepository repository;
+    private final Duration ttl;
+    private final Duration lease;
+    private final Cache<String, IdempotencyKeyRepository.StoredResponse> recent;
+
+    @Autowired
+    public IdempotencyService(IdempotencyKeyRepository repository,
+                              @Value("${product.idempotency.ttl:24h}") Duration ttl,
+                              @Value("${product.idempotency.lease:5m}") Duration lease,
+                              @Value("${product.idempotency.memory-size:32MB}") DataSize memorySize) {
+        this.repository = repository;
+        this.ttl = ttl;
+        this.lease = lease;
+        this.recent = Caffeine.newBuilder()
+                .maximumWeight(memorySize.toBytes())
+                .weigher((String key, IdempotencyKeyRepository.StoredResponse response) ->
+                        key.length() + response.body().length + ENTRY_OVERHEAD_BYTES)
+                // Entries leave memory when their database row expires, not a full ttl after being loaded
+                .expireAfter(new Expiry<String, IdempotencyKeyRepository.StoredResponse>() {
+                    @Override
+                    public long expireAfterCreate(String key, IdempotencyKeyRepository.StoredResponse response,
+                                                  long currentTime) {
+                        return Math.max(0L, Duration.between(Instant.now(), response.expiresAt()).toNanos());
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String key, IdempotencyKeyRepository.StoredResponse response,
+                                                  long currentTime, long currentDuration) {
+                        return expireAfterCreate(key, response, currentTime);
+                    }
+
+                    @Override
+                    public long expireAfterRead(String key, IdempotencyKeyRepository.StoredResponse response,
+                                                long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .build();
+    }
+
+    public Optional<IdempotencyKeyRepository.StoredResponse> findCompleted(String key) {
+        IdempotencyKeyRepository.StoredResponse cached = recent.getIfPresent(key);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+        Optional<IdempotencyKeyRepository.StoredResponse> stored = repository.findCompleted(key);
+        stored.ifPresent(response -> recent.put(key, response));
+        return stored;
+    }
+
+    /**
+     * Claims {@code key} for one execution and returns the token to complete or release it with;
+     * empty when another request holds the key or has already completed with it.
+     */
+    public Optional<UUID> claim(String key) {
+        UUID claimToken = UUID.randomUUID();
+        return repository.claim(key, claimToken, lease) ? Optional.of(claimToken) : Optional.empty();
+    }
+
+    /**
+     * Stores the response of a claimed key for the ttl; retries with the same key and request get it replayed.
+     */
+    public void complete(String key, UUID claimToken, byte[] fingerprint, int status,
+                         String contentType, String location, byte[] body) {
+        IdempotencyKeyRepository.StoredResponse response = new IdempotencyKeyRepository.StoredResponse(
+                fingerprint, status, contentType, location, body, Instant.now().plus(ttl));
+        if (repository.complete(key, claimToken, response)) {
+            recent.put(key, response);
+        }
+    }
+
+    // For requests that failed: a retry with the same key runs again
+    public void release(String key, UUID claimToken) {
+        repository.release(key, claimToken);
+    }
+
+    @Scheduled(initialDelayString = "${product.idempotency.purge-interval:1h}",
+            fixedDelayString = "${product.idempotency.purge-interval:1h}")
+    public void purgeExpiredKeys() {
+        repository.purgeExpired();
+    }
+}
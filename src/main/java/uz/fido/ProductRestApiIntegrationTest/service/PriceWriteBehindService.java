@@ -0,0 +1,164 @@
+package uz.fido.ProductRestApiIntegrationTest.service;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Profile;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import uz.fido.ProductRestApiIntegrationTest.cache.ProductCache;
+import uz.fido.ProductRestApiIntegrationTest.cache.ProductChangeToken;
+import uz.fido.ProductRestApiIntegrationTest.dto.ProductEvent;
+import uz.fido.ProductRestApiIntegrationTest.model.Product;
+import uz.fido.ProductRestApiIntegrationTest.repository.ProductJdbcRepository;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Write-behind for price-only PATCHes ({@code product.write-behind.*}, only created when
+ * enabled): prices are acknowledged from the {@link PriceWriteBuffer} and written with
+ * set-based UPDATEs every flush interval, as soon as max-pending ids are waiting and once more
+ * at shutdown. {@link ProductService} offers prices, reads them back for by-id lookups and
+ * takes them before writing an id directly.
+ */
+@Service
+@Profile("!reactive")
+@ConditionalOnProperty(name = "product.write-behind.enabled", havingValue = "true")
+public class PriceWriteBehindService {
+
+    private final ProductJdbcRepository productJdbcRepository;
+    private final ProductEventService productEventService;
+    private final ProductCache productCache;
+    private final ProductChangeToken productChangeToken;
+    private final TransactionTemplate flushTransaction;
+    private final TaskScheduler flushScheduler;
+    private final PriceWriteBuffer buffer;
+    private final int maxPending;
+    private final int chunkSize;
+    private final AtomicBoolean flushRequested = new AtomicBoolean();
+
+    @Autowired
+    public PriceWriteBehindService(ProductJdbcRepository productJdbcRepository,
+                                   ProductEventService productEventService,
+                                   ProductCache productCache,
+                                   ProductChangeToken productChangeToken,
+                                   PlatformTransactionManager transactionManager,
+                                   TaskScheduler taskScheduler,
+                                   @Value("${product.write-behind.stripes:64}") int stripes,
+                                   @Value("${product.write-behind.max-pending:5000}") int maxPending,
+                                   @Value("${product.bulk.chunk-size:500}") int chunkSize) {
+        this.productJdbcRepository = productJdbcRepository;
+        this.productEventService = productEventService;
+        this.productCache = productCache;
+        this.productChangeToken = productChangeToken;
+        this.flushTransaction = new TransactionTemplate(transactionManager);
+        this.flushScheduler = taskScheduler;
+        this.buffer = new PriceWriteBuffer(stripes);
+        this.maxPending = Math.max(1, maxPending);
+        // Three bind parameters per row against PostgreSQL's 32767 limit
+        this.chunkSize = Math.max(1, Math.min(chunkSize, 10_000));
+    }
+
+    /**
+     * Records the price for the next flush. False once shutdown has begun, in which case the
+     * caller writes it directly.
+     */
+    public boolean offer(long id, double price) {
+        int pending = buffer.offer(id, price);
+        if (pending < 0) {
+            return false;
+        }
+        if (pending >= maxPending && flushRequested.compareAndSet(false, true)) {
+            flushScheduler.schedule(this::flush, Instant.now());
+        }
+        return true;
+    }
+
+    // Price a by-id read must show, or null when none is waiting
+    public Double get(long id) {
+        return buffer.get(id);
+    }
+
+    /**
+     * Takes the pending prices of ids about to be written directly, so they go out with that
+     * write instead of overwriting it later. They are put back if the write rolls back.
+     */
+    public Map<Long, Double> take(Collection<Long> ids) {
+        Map<Long, Double> taken = new HashMap<>();
+        for (Long id : ids) {
+            Double price = buffer.take(id);
+            if (price != null) {
+                taken.put(id, price);
+            }
+        }
+        if (!taken.isEmpty() && TransactionSynchronizationManager.isSynchronizationActive()) {
+            Map<Long, Double> restoreOnRollback = Map.copyOf(taken);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status != STATUS_COMMITTED) {
+                        restoreOnRollback.forEach(buffer::restore);
+                    }
+                }
+            });
+        }
+        return taken;
+    }
+
+    // Writes the coalesced prices in one transaction
+    @Scheduled(fixedDelayString = "${product.write-behind.flush-interval:200ms}")
+    public void flush() {
+        flushRequested.set(false);
+        if (buffer.pendingCount() == 0) {
+            return;
+        }
+
+        Map<Long, Double> batch = buffer.beginFlush();
+        boolean committed = false;
+        try {
+            if (!batch.isEmpty()) {
+                flushTransaction.executeWithoutResult(status -> write(batch));
+            }
+            committed = true;
+        } finally {
+            buffer.endFlush(committed);
+        }
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        buffer.close();
+        flush();
+    }
+
+    private void write(Map<Long, Double> batch) {
+        List<Map.Entry<Long, Double>> entries = new ArrayList<>(batch.entrySet());
+        for (int from = 0; from < entries.size(); from += chunkSize) {
+            Map<Long, Product> changesById = new LinkedHashMap<>();
+            for (Map.Entry<Long, Double> entry : entries.subList(from, Math.min(from + chunkSize, entries.size()))) {
+                changesById.put(entry.getKey(), new Product(null, null, entry.getValue(), null));
+            }
+            Set<Long> updatedIds = productJdbcRepository.updateAll(changesById);
+            if (!updatedIds.isEmpty()) {
+                // The same bookkeeping as ProductService's own writes
+                productEventService.recordChanges(ProductEvent.Type.UPDATE, updatedIds);
+                productCache.invalidateAllAfterCommit(updatedIds);
+                productChangeToken.advanceAfterCommit();
+            }
+        }
+    }
+}
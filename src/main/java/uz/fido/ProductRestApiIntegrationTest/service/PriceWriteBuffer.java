@@ -0,0 +1,169 @@
+package uz.fido.ProductRestApiIntegrationTest.service;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Pending price writes by product id for write-behind mode; only the latest price per id is
+ * kept. Ids are spread over lock stripes, and the locks are {@link ReentrantLock}s rather than
+ * monitors so a virtual thread waiting on one does not pin its carrier.
+ * <p>
+ * A flush moves a stripe's entries to its in-flight map, which stays readable until the flush
+ * has committed, so by-id reads never fall back to the old price in between.
+ */
+final class PriceWriteBuffer {
+
+    private final Stripe[] stripes;
+    private final AtomicInteger pendingCount = new AtomicInteger();
+    // Held for the whole of a flush; direct writes to an in-flight id wait on it
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private volatile boolean closed;
+
+    PriceWriteBuffer(int stripeCount) {
+        this.stripes = new Stripe[Math.max(1, stripeCount)];
+        for (int i = 0; i < stripes.length; i++) {
+            stripes[i] = new Stripe();
+        }
+    }
+
+    /**
+     * Records the price and returns the number of pending ids, or -1 when the buffer no
+     * longer accepts writes and the caller must write through.
+     */
+    int offer(long id, double price) {
+        if (closed) {
+            return -1;
+        }
+        Stripe stripe = stripeFor(id);
+        stripe.lock.lock();
+        try {
+            if (stripe.pending.put(id, price) == null) {
+                return pendingCount.incrementAndGet();
+            }
+            return pendingCount.get();
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+
+    // Price a by-id read must show: pending first, then one being flushed
+    Double get(long id) {
+        Stripe stripe = stripeFor(id);
+        stripe.lock.lock();
+        try {
+            Double price = stripe.pending.get(id);
+            return price != null ? price : stripe.inFlight.get(id);
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+
+    /**
+     * Removes the pending price of an id that is about to be written directly, so the direct
+     * write can carry it and a later flush cannot overwrite that write. If the id is part of a
+     * running flush, waits for the flush to finish first.
+     */
+    Double take(long id) {
+        Stripe stripe = stripeFor(id);
+        while (true) {
+            boolean inFlight;
+            stripe.lock.lock();
+            try {
+                Double price = stripe.pending.remove(id);
+                if (price != null) {
+                    pendingCount.decrementAndGet();
+                    return price;
+                }
+                inFlight = stripe.inFlight.containsKey(id);
+            } finally {
+                stripe.lock.unlock();
+            }
+            if (!inFlight) {
+                return null;
+            }
+            flushLock.lock();
+            flushLock.unlock();
+        }
+    }
+
+    // Puts a taken price back after the direct write rolled back, unless a newer price arrived
+    void restore(long id, double price) {
+        Stripe stripe = stripeFor(id);
+        stripe.lock.lock();
+        try {
+            if (stripe.pending.putIfAbsent(id, price) == null) {
+                pendingCount.incrementAndGet();
+            }
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+
+    int pendingCount() {
+        return pendingCount.get();
+    }
+
+    /**
+     * Starts a flush: takes the flush lock and moves every pending entry in flight. Must be
+     * followed by {@link #endFlush}.
+     */
+    Map<Long, Double> beginFlush() {
+        flushLock.lock();
+        Map<Long, Double> batch = new HashMap<>();
+        for (Stripe stripe : stripes) {
+            stripe.lock.lock();
+            try {
+                if (!stripe.pending.isEmpty()) {
+                    stripe.inFlight = stripe.pending;
+                    stripe.pending = new HashMap<>();
+                    pendingCount.addAndGet(-stripe.inFlight.size());
+                    batch.putAll(stripe.inFlight);
+                }
+            } finally {
+                stripe.lock.unlock();
+            }
+        }
+        return batch;
+    }
+
+    // On failure the in-flight prices go back to pending, behind any newer value for the same id
+    void endFlush(boolean committed) {
+        try {
+            for (Stripe stripe : stripes) {
+                stripe.lock.lock();
+                try {
+                    if (!committed) {
+                        stripe.inFlight.forEach((id, price) -> {
+                            if (stripe.pending.putIfAbsent(id, price) == null) {
+                                pendingCount.incrementAndGet();
+                            }
+                        });
+                    }
+                    stripe.inFlight = Map.of();
+                } finally {
+                    stripe.lock.unlock();
+                }
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    // Further price updates are written through; whatever is pending is flushed once more by the owner
+    void close() {
+        closed = true;
+    }
+
+    private Stripe stripeFor(long id) {
+        return stripes[(Long.hashCode(id) & 0x7fffffff) % stripes.length];
+    }
+
+    private static final class Stripe {
+
+        private final ReentrantLock lock = new ReentrantLock();
+        private Map<Long, Double> pending = new HashMap<>();
+        private Map<Long, Double> inFlight = Map.of();
+    }
+}
@@ -0,0 +1,252 @@
+package uz.fido.ProductRestApiIntegrationTest.service;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import uz.fido.ProductRestApiIntegrationTest.dto.ProductEvent;
+import uz.fido.ProductRestApiIntegrationTest.repository.ProductEventRepository;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Change-data stream of product writes through a transactional outbox. Writers record events
+ * in their own transaction; an embedded relay moves committed events into the offset-ordered
+ * log right after each commit (and on a poll, for events written by other instances), and
+ * stream subscribers tail that log from the offset they last saw, one batch per query.
+ */
+@Service
+@Profile("!reactive")
+public class ProductEventService {
+
+    private final ProductEventRepository eventRepository;
+    private final TransactionTemplate relayTransaction;
+    private final TaskScheduler taskScheduler;
+    private final ThreadPoolTaskExecutor subscribers;
+    private final int batchSize;
+    private final Duration pollInterval;
+    private final Duration retention;
+    private final AtomicBoolean relayRequested = new AtomicBoolean();
+    // Wakes idle subscribers as soon as a local relay has published, instead of at their next poll
+    private final ReentrantLock publishLock = new ReentrantLock();
+    private final Condition published = publishLock.newCondition();
+    private volatile long publishedOffset;
+
+    @Autowired
+    public ProductEventService(ProductEventRepository eventRepository,
+                               PlatformTransactionManager transactionManager,
+                               TaskScheduler taskScheduler,
+                               @Value("${product.events.batch-size:500}") int batchSize,
+                               @Value("${product.events.poll-interval:1s}") Duration pollInterval,
+                               @Value("${product.events.max-subscribers:100}") int maxSubscribers,
+                               @Value("${product.events.retention:7d}") Duration retention) {
+        this.eventRepository = eventRepository;
+        this.relayTransaction = new TransactionTemplate(transactionManager);
+        this.taskScheduler = taskScheduler;
+        this.batchSize = Math.max(1, batchSize);
+        this.pollInterval = pollInterval;
+        this.retention = retention;
+
+        // Each open stream holds one of these threads; past max-subscribers new streams are refused
+        this.subscribers = new ThreadPoolTaskExecutor();
+        this.subscribers.setCorePoolSize(Math.max(1, maxSubscribers));
+        this.subscribers.setMaxPoolSize(Math.max(1, maxSubscribers));
+        this.subscribers.setQueueCapacity(0);
+        this.subscribers.setAllowCoreThreadTimeOut(true);
+        this.subscribers.setThreadNamePrefix("product-events-");
+        this.subscribers.initialize();
+    }
+
+    /**
+     * Records the current state of the given products as {@code type} events; call it in the
+     * writing transaction, after the write.
+     */
+    public void recordChanges(ProductEvent.Type type, Collection<Long> productIds) {
+        if (productIds.isEmpty()) {
+            return;
+        }
+        eventRepository.recordChanges(type, productIds);
+        relayAfterCommit();
+    }
+
+    public void recordDeletes(Collection<Long> productIds) {
+        if (productIds.isEmpty()) {
+            return;
+        }
+        eventRepository.recordDeletes(productIds);
+        relayAfterCommit();
+    }
+
+    /**
+     * Highest product id before a bulk insert that does not return ids; pass it to
+     * {@link #recordCreatedSince} once the rows are in.
+     */
+    public long productIdWatermark() {
+        return eventRepository.maxProductId();
+    }
+
+    public void recordCreatedSince(long productIdWatermark) {
+        eventRepository.recordCreatedInCurrentTransaction(productIdWatermark);
+        relayAfterCommit();
+    }
+
+    public long head() {
+        return eventRepository.head();
+    }
+
+    /**
+     * Moves committed outbox rows into the event log, batch by batch, and wakes the subscribers.
+     * Runs right after local commits and every poll interval for everything else.
+     */
+    @Scheduled(fixedDelayString = "${product.events.poll-interval:1s}")
+    public void relayPending() {
+        relayRequested.set(false);
+        while (true) {
+            Long lastOffset = relayTransaction.execute(status -> eventRepository.relay(batchSize));
+            if (lastOffset == null || lastOffset == 0L) {
+                return;
+            }
+            signalPublished(lastOffset);
+        }
+    }
+
+    // Consumers further behind than the retention have to resync from GET /api/products
+    @Scheduled(initialDelayString = "${product.events.purge-interval:1h}",
+            fixedDelayString = "${product.events.purge-interval:1h}")
+    public void purgeExpiredEvents() {
+        eventRepository.purgeOlderThan(retention);
+    }
+
+    /**
+     * Starts delivering the events after {@code offset} to {@code sink} on a subscriber thread,
+     * one batch per call. With {@code follow} it keeps waiting for new events until cancelled;
+     * without it, it stops once the subscriber has caught up.
+     *
+     * @throws org.springframework.core.task.TaskRejectedException when max-subscribers streams are already open
+     */
+    public Subscription subscribe(long offset, boolean follow, EventSink sink) {
+        Subscription subscription = new Subscription();
+        subscribers.execute(() -> tail(subscription, Math.max(0L, offset), follow, sink));
+        return subscription;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        // Open streams end with the application; subscribers reconnect from their last offset
+        subscribers.shutdown();
+    }
+
+    /**
+     * Receives a subscriber's events on its thread. Throwing from a callback ends the subscription.
+     */
+    public interface EventSink {
+
+        void onEvents(List<ProductEvent> batch) throws IOException;
+
+        // After each poll interval without events, e.g. for keepalives
+        void onIdle() throws IOException;
+
+        // Called once; error is null when the subscriber caught up (no follow) or was cancelled
+        void onEnd(Exception error);
+    }
+
+    public static final class Subscription {
+
+        private volatile boolean cancelled;
+
+        public void cancel() {
+            cancelled = true;
+        }
+    }
+
+    private void tail(Subscription subscription, long offset, boolean follow, EventSink sink) {
+        long position = offset;
+        try {
+            while (!subscription.cancelled) {
+                List<ProductEvent> batch = eventRepository.findAfter(position, batchSize);
+                if (!batch.isEmpty()) {
+                    sink.onEvents(batch);
+                    position = batch.get(batch.size() - 1).offset();
+                    continue;
+                }
+                if (!follow) {
+                    break;
+                }
+                if (!awaitPublished(position)) {
+                    sink.onIdle();
+                }
+            }
+            sink.onEnd(null);
+        } catch (IOException | RuntimeException e) {
+            // Client went away or the database failed; the client resumes from its last offset
+            sink.onEnd(e);
+        }
+    }
+
+    /**
+     * Waits until a local relay publishes past {@code position}, or at most one poll interval so
+     * events relayed by other instances are picked up too. Returns false on a timeout.
+     */
+    private boolean awaitPublished(long position) {
+        publishLock.lock();
+        try {
+            long remaining = pollInterval.toNanos();
+            while (publishedOffset <= position) {
+                if (remaining <= 0L) {
+                    return false;
+                }
+                remaining = published.awaitNanos(remaining);
+            }
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for product events", e);
+        } finally {
+            publishLock.unlock();
+        }
+    }
+
+    private void signalPublished(long offset) {
+        publishLock.lock();
+        try {
+            publishedOffset = Math.max(publishedOffset, offset);
+            published.signalAll();
+        } finally {
+            publishLock.unlock();
+        }
+    }
+
+    private void relayAfterCommit() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            requestRelay();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                requestRelay();
+            }
+        });
+    }
+
+    private void requestRelay() {
+        if (relayRequested.compareAndSet(false, true)) {
+            taskScheduler.schedule(this::relayPending, Instant.now());
+        }
+    }
+}
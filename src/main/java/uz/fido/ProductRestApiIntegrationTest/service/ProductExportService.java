@@ -0,0 +1,218 @@
+package uz.fido.ProductRestApiIntegrationTest.service;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import uz.fido.ProductRestApiIntegrationTest.exception.ProductValidationException;
+import uz.fido.ProductRestApiIntegrationTest.repository.ProductJdbcRepository;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.util.Optional;
+
+/**
+ * Full-catalog exports straight from {@code COPY TO STDOUT}, either streamed to a caller or
+ * written to a snapshot file that is rebuilt every snapshot-interval. Each snapshot goes to a
+ * new file, so a download in progress keeps reading the one it started with.
+ */
+@Service
+@Profile("!reactive")
+public class ProductExportService {
+
+    public enum Format {
+        CSV,
+        BINARY;
+
+        /**
+         * @throws ProductValidationException for a name other than csv or binary
+         */
+        public static Format fromParameter(String name) {
+            for (Format format : values()) {
+                if (format.name().equalsIgnoreCase(name.trim())) {
+                    return format;
+                }
+            }
+            throw new ProductValidationException("Unsupported export format: " + name);
+        }
+    }
+
+    /**
+     * A finished snapshot file. Files are never rewritten, so the creation time identifies the content.
+     */
+    public record Snapshot(Path file, Format format, long size, Instant createdAt) {
+
+        public String etag() {
+            return "\"" + Long.toHexString(createdAt.toEpochMilli()) + "\"";
+        }
+    }
+
+    private static final String SNAPSHOT_PREFIX = "products-";
+    private static final String TEMP_PREFIX = ".export-";
+    private static final String TEMP_SUFFIX = ".tmp";
+    private static final int SNAPSHOT_BUFFER_BYTES = 64 * 1024;
+
+    private final ProductJdbcRepository productJdbcRepository;
+    private final TransactionTemplate exportTransaction;
+    private final Path snapshotDir;
+    private final Format snapshotFormat;
+    private final ThreadPoolTaskExecutor snapshotWriter;
+    private volatile Snapshot snapshot;
+
+    @Autowired
+    public ProductExportService(ProductJdbcRepository productJdbcRepository,
+                                PlatformTransactionManager transactionManager,
+                                @Value("${product.export.snapshot-dir:${java.io.tmpdir}/product-export}") Path snapshotDir,
+                                @Value("${product.export.snapshot-format:csv}") Format snapshotFormat) {
+        this.productJdbcRepository = productJdbcRepository;
+        this.exportTransaction = new TransactionTemplate(transactionManager);
+        // Read-only, so exports run on a replica when replicas are configured
+        this.exportTransaction.setReadOnly(true);
+        this.snapshotDir = snapshotDir;
+        this.snapshotFormat = snapshotFormat;
+        this.snapshot = findLatestSnapshot();
+        deleteStaleTempFiles();
+
+        // Snapshots run here rather than on the shared scheduler thread, where a long COPY would
+        // hold back the price flushes, the event relay and the other periodic work
+        this.snapshotWriter = new ThreadPoolTaskExecutor();
+        this.snapshotWriter.setCorePoolSize(1);
+        this.snapshotWriter.setMaxPoolSize(1);
+        this.snapshotWriter.setQueueCapacity(0);
+        this.snapshotWriter.setThreadNamePrefix("product-export-");
+        this.snapshotWriter.initialize();
+    }
+
+    /**
+     * Writes all products to {@code out} in {@code format} (CSV with a header line, or PostgreSQL's
+     * binary COPY format) from a single statement, so the rows are one consistent snapshot.
+     * Returns the number of rows written.
+     */
+    public long exportProducts(OutputStream out, Format format) {
+        Long rows = exportTransaction.execute(status -> productJdbcRepository.copyOut(out, format == Format.BINARY));
+        return rows == null ? 0L : rows;
+    }
+
+    public Optional<Snapshot> currentSnapshot() {
+        return Optional.ofNullable(snapshot);
+    }
+
+    // Hands the refresh to the snapshot writer; one that is due while the last is still running is skipped
+    @Scheduled(initialDelayString = "${product.export.snapshot-initial-delay:1m}",
+            fixedDelayString = "${product.export.snapshot-interval:1h}")
+    public void scheduleSnapshotRefresh() {
+        try {
+            snapshotWriter.execute(this::refreshSnapshot);
+        } catch (TaskRejectedException e) {
+            // The running refresh produces an up-to-date snapshot
+        }
+    }
+
+    /**
+     * Writes a new snapshot next to the current one and switches to it once complete. The
+     * previous file is kept until the next refresh: a download may have been handed it but
+     * not opened it yet.
+     */
+    public synchronized void refreshSnapshot() {
+        try {
+            Files.createDirectories(snapshotDir);
+            deleteStaleTempFiles();
+            Instant createdAt = Instant.now();
+            Path temp = Files.createTempFile(snapshotDir, TEMP_PREFIX, TEMP_SUFFIX);
+            try {
+                try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(temp), SNAPSHOT_BUFFER_BYTES)) {
+                    exportProducts(out, snapshotFormat);
+                }
+                Path file = snapshotDir.resolve(SNAPSHOT_PREFIX + createdAt.toEpochMilli() + extension(snapshotFormat));
+                Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE);
+
+                Snapshot previous = snapshot;
+                snapshot = new Snapshot(file, snapshotFormat, Files.size(file), createdAt);
+                deleteSnapshotsExcept(file, previous == null ? null : previous.file());
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        snapshotWriter.shutdown();
+    }
+
+    // Picks up the newest snapshot written before a restart, so one is served right away
+    private Snapshot findLatestSnapshot() {
+        if (!Files.isDirectory(snapshotDir)) {
+            return null;
+        }
+        String extension = extension(snapshotFormat);
+        Snapshot latest = null;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(snapshotDir, SNAPSHOT_PREFIX + "*" + extension)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                long createdAtMillis;
+                try {
+                    createdAtMillis = Long.parseLong(
+                            name.substring(SNAPSHOT_PREFIX.length(), name.length() - extension.length()));
+                } catch (NumberFormatException e) {
+                    continue;
+                }
+                if (latest == null || createdAtMillis > latest.createdAt().toEpochMilli()) {
+                    latest = new Snapshot(file, snapshotFormat, Files.size(file), Instant.ofEpochMilli(createdAtMillis));
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return latest;
+    }
+
+    /**
+     * Removes partial snapshots left by a process that died while writing one. A refresh always
+     * deletes its own temp file, and only one runs at a time.
+     */
+    private void deleteStaleTempFiles() {
+        if (!Files.isDirectory(snapshotDir)) {
+            return;
+        }
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(snapshotDir, TEMP_PREFIX + "*" + TEMP_SUFFIX)) {
+            for (Path file : files) {
+                Files.deleteIfExists(file);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void deleteSnapshotsExcept(Path current, Path previous) throws IOException {
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(snapshotDir, SNAPSHOT_PREFIX + "*")) {
+            for (Path file : files) {
+                if (!file.equals(current) && !file.equals(previous)) {
+                    Files.deleteIfExists(file);
+                }
+            }
+        }
+    }
+
+    private static String extension(Format format) {
+        return switch (format) {
+            case BINARY -> ".bin";
+            case CSV -> ".csv";
+        };
+    }
+}
@@ -0,0 +1,228 @@
+package uz.fido.ProductRestApiIntegrationTest.service;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.annotation.Timed;
+import jakarta.annotation.PreDestroy;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.NonTransientDataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import uz.fido.ProductRestApiIntegrationTest.dto.ImportJobStatus;
+import uz.fido.ProductRestApiIntegrationTest.model.Product;
+import uz.fido.ProductRestApiIntegrationTest.repository.ProductImportJobRepository;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Async mode of {@code POST /api/products/bulk}: the payload is stored with a job row and
+ * ingested by a bounded worker pool, one committed transaction per chunk. Progress is recorded
+ * in the same transaction as the chunk's rows, so a job picked up again after a restart
+ * continues exactly after the last committed chunk. Only a payload that cannot be read fails
+ * a job; other errors leave it to be resumed.
+ */
+@Service
+@Profile("!reactive")
+@Timed(value = "product.service", histogram = true)
+public class ProductImportJobService {
+
+    private static final TypeReference<List<Product>> PRODUCT_LIST = new TypeReference<>() {
+    };
+    // Errors beyond this are only counted, as for synchronous imports
+    private static final int MAX_REPORTED_ERRORS = 100;
+
+    private final ProductImportJobRepository jobRepository;
+    private final ProductService productService;
+    private final TransactionTemplate chunkTransaction;
+    private final Validator validator;
+    private final ObjectMapper objectMapper;
+    private final ThreadPoolTaskExecutor workers;
+    private final int chunkSize;
+    private final Duration staleAfter;
+
+    @Autowired
+    public ProductImportJobService(ProductImportJobRepository jobRepository,
+                                   ProductService productService,
+                                   PlatformTransactionManager transactionManager,
+                                   Validator validator,
+                                   ObjectMapper objectMapper,
+                                   @Value("${product.import-jobs.workers:2}") int workers,
+                                   @Value("${product.import-jobs.queue-capacity:50}") int queueCapacity,
+                                   @Value("${product.import-jobs.chunk-size:1000}") int chunkSize,
+                                   @Value("${product.import-jobs.stale-after:2m}") Duration staleAfter) {
+        this.jobRepository = jobRepository;
+        this.productService = productService;
+        this.chunkTransaction = new TransactionTemplate(transactionManager);
+        this.validator = validator;
+        this.objectMapper = objectMapper;
+        this.chunkSize = Math.max(1, chunkSize);
+        this.staleAfter = staleAfter;
+
+        // Not a bean: an Executor bean would replace Boot's applicationTaskExecutor used for MVC async
+        this.workers = new ThreadPoolTaskExecutor();
+        this.workers.setCorePoolSize(Math.max(1, workers));
+        this.workers.setMaxPoolSize(Math.max(1, workers));
+        this.workers.setQueueCapacity(Math.max(0, queueCapacity));
+        this.workers.setThreadNamePrefix("product-import-");
+        this.workers.initialize();
+    }
+
+    /**
+     * Stores the job and hands it to a worker. When every worker is busy and the queue is
+     * full the job simply stays queued until {@link #resumePendingJobs} picks it up.
+     */
+    public ImportJobStatus submit(List<Product> products) {
+        byte[] payload;
+        try {
+            payload = objectMapper.writeValueAsBytes(products);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        long jobId = jobRepository.create(payload, products.size(), chunkSize);
+        dispatch(jobId);
+        return jobRepository.findStatus(jobId, 0)
+                .orElseThrow(() -> new IllegalStateException("Import job " + jobId + " vanished"));
+    }
+
+    public Optional<ImportJobStatus> getStatus(long jobId) {
+        return jobRepository.findStatus(jobId, MAX_REPORTED_ERRORS);
+    }
+
+    /**
+     * Picks up jobs that are still queued, and running jobs whose worker stopped heart-beating
+     * (for example because its node was restarted).
+     */
+    @Scheduled(initialDelayString = "${product.import-jobs.poll-interval:30s}",
+            fixedDelayString = "${product.import-jobs.poll-interval:30s}")
+    public void resumePendingJobs() {
+        int idle = workers.getMaxPoolSize() - workers.getActiveCount();
+        if (idle <= 0) {
+            return;
+        }
+        for (Long jobId : jobRepository.findClaimable(staleAfter, idle)) {
+            if (!dispatch(jobId)) {
+                return;
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        // Interrupted jobs keep their committed chunks and are resumed once their heartbeat goes stale
+        workers.shutdown();
+    }
+
+    private boolean dispatch(long jobId) {
+        try {
+            workers.execute(() -> run(jobId));
+            return true;
+        } catch (TaskRejectedException e) {
+            return false;
+        }
+    }
+
+    private void run(long jobId) {
+        Optional<ProductImportJobRepository.ClaimedJob> claimed = jobRepository.claim(jobId, staleAfter);
+        if (claimed.isEmpty()) {
+            return;
+        }
+        ProductImportJobRepository.ClaimedJob job = claimed.get();
+
+        try {
+            List<Product> products = objectMapper.readValue(job.payload(), PRODUCT_LIST);
+            int reportedErrors = jobRepository.countErrors(jobId);
+            int totalChunks = (products.size() + job.chunkSize() - 1) / job.chunkSize();
+
+            for (int chunk = job.committedChunks(); chunk < totalChunks; chunk++) {
+                int from = chunk * job.chunkSize();
+                List<Product> rows = products.subList(from, Math.min(from + job.chunkSize(), products.size()));
+                int recorded = ingestChunk(jobId, chunk, from, rows, MAX_REPORTED_ERRORS - reportedErrors);
+                if (recorded < 0) {
+                    return; // Taken over by another worker
+                }
+                reportedErrors += recorded;
+            }
+            jobRepository.complete(jobId);
+        } catch (IOException e) {
+            // The stored payload cannot be read, and never will be
+            jobRepository.fail(jobId, e.getMessage());
+        }
+        // Anything else (no connection, a shutdown interrupting the chunk) leaves the job RUNNING:
+        // its heartbeat goes stale and resumePendingJobs continues it after the last committed chunk
+    }
+
+    /**
+     * Inserts the valid rows of one chunk and records its progress in a single transaction.
+     * Returns the number of errors stored, or -1 when the job is no longer ours.
+     */
+    private int ingestChunk(long jobId, int chunk, int firstRow, List<Product> rows, int errorBudget) {
+        List<Product> valid = new ArrayList<>(rows.size());
+        List<ImportJobStatus.ChunkError> errors = new ArrayList<>();
+        for (int i = 0; i < rows.size(); i++) {
+            String error = validate(rows.get(i));
+            if (error == null) {
+                valid.add(rows.get(i));
+            } else {
+                errors.add(new ImportJobStatus.ChunkError(chunk, (long) (firstRow + i), error));
+            }
+        }
+        long rejected = errors.size();
+        List<ImportJobStatus.ChunkError> reported = errors.subList(0, Math.max(0, Math.min(errors.size(), errorBudget)));
+
+        try {
+            Boolean recorded = chunkTransaction.execute(status -> {
+                productService.createProducts(valid);
+                if (!jobRepository.recordChunk(jobId, chunk, valid.size(), rejected, reported)) {
+                    status.setRollbackOnly();
+                    return false;
+                }
+                return true;
+            });
+            return Boolean.TRUE.equals(recorded) ? reported.size() : -1;
+        } catch (NonTransientDataAccessException e) {
+            // Lost connections, timeouts and lock failures may pass on a retry: they end the run
+            // before the chunk is recorded, and the resumed job tries the chunk again
+            if (e instanceof DataAccessResourceFailureException) {
+                throw e;
+            }
+            // The database refused the chunk's rows: skip it, but keep going with the rest
+            List<ImportJobStatus.ChunkError> chunkError = errorBudget > 0
+                    ? List.of(new ImportJobStatus.ChunkError(chunk, null, e.getMostSpecificCause().getMessage()))
+                    : List.of();
+            Boolean recorded = chunkTransaction.execute(status ->
+                    jobRepository.recordChunk(jobId, chunk, 0, rows.size(), chunkError));
+            return Boolean.TRUE.equals(recorded) ? chunkError.size() : -1;
+        }
+    }
+
+    private String validate(Product product) {
+        if (product == null) {
+            return "Row must not be null";
+        }
+        Set<ConstraintViolation<Product>> violations = validator.validate(product);
+        if (violations.isEmpty()) {
+            return null;
+        }
+        return violations.stream()
+                .map(ConstraintViolation::getMessage)
+                .sorted()
+                .collect(Collectors.joining("; "));
+    }
+}
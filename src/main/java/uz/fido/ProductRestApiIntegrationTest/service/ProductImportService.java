@@ -0,0 +1,238 @@
+package uz.fido.ProductRestApiIntegrationTest.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.annotation.Timed;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import uz.fido.ProductRestApiIntegrationTest.cache.ProductCache;
+import uz.fido.ProductRestApiIntegrationTest.cache.ProductChangeToken;
+import uz.fido.ProductRestApiIntegrationTest.dto.ImportSummary;
+import uz.fido.ProductRestApiIntegrationTest.model.Product;
+import uz.fido.ProductRestApiIntegrationTest.repository.ProductJdbcRepository;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+@Service
+@Profile("!reactive")
+@Timed(value = "product.service", histogram = true)
+public class ProductImportService {
+
+    // Row-level errors beyond this are only counted, so a bad file cannot blow up the response
+    private static final int MAX_REPORTED_ERRORS = 100;
+
+    public enum Format {
+        CSV,
+        NDJSON
+    }
+
+    private final ProductJdbcRepository productJdbcRepository;
+    private final ProductCache productCache;
+    private final ProductChangeToken productChangeToken;
+    private final ProductEventService productEventService;
+    private final Validator validator;
+    private final ObjectMapper objectMapper;
+    private final boolean uniqueNames;
+
+    @Autowired
+    public ProductImportService(ProductJdbcRepository productJdbcRepository,
+                                ProductCache productCache,
+                                ProductChangeToken productChangeToken,
+                                ProductEventService productEventService,
+                                Validator validator,
+                                ObjectMapper objectMapper,
+                                @Value("${product.bulk.unique-names:false}") boolean uniqueNames) {
+        this.productJdbcRepository = productJdbcRepository;
+        this.productCache = productCache;
+        this.productChangeToken = productChangeToken;
+        this.productEventService = productEventService;
+        this.validator = validator;
+        this.objectMapper = objectMapper;
+        this.uniqueNames = uniqueNames;
+    }
+
+    /**
+     * Parses and validates the body line by line and copies the valid rows straight into
+     * {@code products}. Invalid rows are skipped and reported; they do not abort the import.
+     * With unique names, rows whose name already exists are skipped and counted.
+     */
+    @Transactional
+    public ImportSummary importProducts(InputStream body, Format format) {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8));
+        ValidatingRowIterator rows = new ValidatingRowIterator(reader, format);
+        long watermark = productEventService.productIdWatermark();
+        long accepted = uniqueNames ? productJdbcRepository.copyInNewNames(rows) : productJdbcRepository.copyIn(rows);
+        productEventService.recordCreatedSince(watermark);
+        // New ids are not known to us, so any cached "missing" entry may now be stale
+        productCache.invalidateMissingAfterCommit();
+        productChangeToken.advanceAfterCommit();
+        return new ImportSummary(accepted, rows.rejected, rows.valid - accepted, rows.errors);
+    }
+
+    private Product parseCsv(String line) {
+        List<String> fields = splitCsvLine(line);
+        if (fields.size() != 2) {
+            throw new IllegalArgumentException("Expected 2 columns (name,price) but found " + fields.size());
+        }
+        return new Product(fields.get(0), parsePrice(fields.get(1).trim()));
+    }
+
+    private Product parseNdjson(String line) {
+        try {
+            Product product = objectMapper.readValue(line, Product.class);
+            if (product == null) {
+                throw new IllegalArgumentException("Row must be a JSON object");
+            }
+            product.setId(null);
+            return product;
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Malformed JSON: " + e.getOriginalMessage());
+        }
+    }
+
+    private static Double parsePrice(String value) {
+        if (value.isEmpty()) {
+            return null;
+        }
+        try {
+            return Double.valueOf(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Price is not a number: " + value);
+        }
+    }
+
+    // RFC 4180 fields on a single line: quoted fields may contain commas and doubled quotes
+    private static List<String> splitCsvLine(String line) {
+        List<String> fields = new ArrayList<>(2);
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        if (quoted) {
+            throw new IllegalArgumentException("Unterminated quoted field");
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    /**
+     * Pulls one line at a time from the request body and yields only rows that pass the
+     * {@link Product} bean constraints, recording the rest.
+     */
+    private final class ValidatingRowIterator implements Iterator<Product> {
+
+        private final BufferedReader reader;
+        private final Format format;
+        private final List<ImportSummary.RowError> errors = new ArrayList<>();
+        private long lineNumber;
+        private long rejected;
+        private long valid;
+        private Product next;
+
+        private ValidatingRowIterator(BufferedReader reader, Format format) {
+            this.reader = reader;
+            this.format = format;
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (next == null) {
+                String line = readLine();
+                if (line == null) {
+                    return false;
+                }
+                lineNumber++;
+                if (line.isBlank() || isCsvHeader(line)) {
+                    continue;
+                }
+                next = parseAndValidate(line);
+            }
+            return true;
+        }
+
+        @Override
+        public Product next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            Product product = next;
+            next = null;
+            valid++;
+            return product;
+        }
+
+        private Product parseAndValidate(String line) {
+            Product product;
+            try {
+                product = format == Format.CSV ? parseCsv(line) : parseNdjson(line);
+            } catch (IllegalArgumentException e) {
+                reject(e.getMessage());
+                return null;
+            }
+
+            Set<ConstraintViolation<Product>> violations = validator.validate(product);
+            if (!violations.isEmpty()) {
+                reject(violations.stream()
+                        .map(ConstraintViolation::getMessage)
+                        .sorted()
+                        .collect(Collectors.joining("; ")));
+                return null;
+            }
+            return product;
+        }
+
+        private boolean isCsvHeader(String line) {
+            return format == Format.CSV && lineNumber == 1
+                    && line.trim().equalsIgnoreCase("name,price");
+        }
+
+        private void reject(String message) {
+            rejected++;
+            if (errors.size() < MAX_REPORTED_ERRORS) {
+                errors.add(new ImportSummary.RowError(lineNumber, message));
+            }
+        }
+
+        private String readLine() {
+            try {
+                return reader.readLine();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+}
@@ -1,25 +1,96 @@
 package uz.fido.ProductRestApiIntegrationTest.service;
 
+import io.micrometer.core.annotation.Timed;
+import jakarta.persistence.EntityManager;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import uz.fido.ProductRestApiIntegrationTest.cache.ProductCache;
+import uz.fido.ProductRestApiIntegrationTest.cache.ProductChangeToken;
+import uz.fido.ProductRestApiIntegrationTest.config.ReplicaRoutingDataSource;
+import uz.fido.ProductRestApiIntegrationTest.dto.ProductEvent;
+import uz.fido.ProductRestApiIntegrationTest.dto.ProductFieldsPage;
+import uz.fido.ProductRestApiIntegrationTest.dto.ProductPage;
+import uz.fido.ProductRestApiIntegrationTest.dto.ProductSearchResult;
+import uz.fido.ProductRestApiIntegrationTest.dto.ProductSummary;
+import uz.fido.ProductRestApiIntegrationTest.dto.ProductUpdateOutcome;
 import uz.fido.ProductRestApiIntegrationTest.exception.ProductNotFoundException;
+import uz.fido.ProductRestApiIntegrationTest.exception.ProductValidationException;
+import uz.fido.ProductRestApiIntegrationTest.exception.ProductVersionMismatchException;
 import uz.fido.ProductRestApiIntegrationTest.model.Product;
+import uz.fido.ProductRestApiIntegrationTest.repository.ProductField;
+import uz.fido.ProductRestApiIntegrationTest.repository.ProductJdbcRepository;
 import uz.fido.ProductRestApiIntegrationTest.repository.ProductRepository;
 
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
+@Profile("!reactive")
+@Timed(value = "product.service", histogram = true)
 @Transactional
 public class ProductService {
 
     private final ProductRepository productRepository;
+    private final ProductJdbcRepository productJdbcRepository;
+    private final ProductCache productCache;
+    private final ProductChangeToken productChangeToken;
+    private final ProductEventService productEventService;
+    private final EntityManager entityManager;
+    private final Validator validator;
+    private final int defaultPageSize;
+    private final int maxPageSize;
+    private final int bulkChunkSize;
+    private final boolean uniqueNames;
+    private final PriceWriteBehindService priceWriteBehind; // null unless product.write-behind.enabled
 
     @Autowired
-    public ProductService(ProductRepository productRepository) {
+    public ProductService(ProductRepository productRepository,
+                          ProductJdbcRepository productJdbcRepository,
+                          ProductCache productCache,
+                          ProductChangeToken productChangeToken,
+                          ProductEventService productEventService,
+                          EntityManager entityManager,
+                          Validator validator,
+                          @Value("${product.pagination.default-limit:100}") int defaultPageSize,
+                          @Value("${product.pagination.max-limit:1000}") int maxPageSize,
+                          @Value("${product.bulk.chunk-size:500}") int bulkChunkSize,
+                          @Value("${product.bulk.unique-names:false}") boolean uniqueNames,
+                          ObjectProvider<PriceWriteBehindService> priceWriteBehind) {
         this.productRepository = productRepository;
+        this.productJdbcRepository = productJdbcRepository;
+        this.productCache = productCache;
+        this.productChangeToken = productChangeToken;
+        this.productEventService = productEventService;
+        this.entityManager = entityManager;
+        this.validator = validator;
+        this.defaultPageSize = defaultPageSize;
+        this.maxPageSize = maxPageSize;
+        // PostgreSQL caps a statement at 32767 bind parameters, two per row
+        this.bulkChunkSize = Math.max(1, Math.min(bulkChunkSize, 16_000));
+        this.uniqueNames = uniqueNames;
+        this.priceWriteBehind = priceWriteBehind.getIfAvailable();
     }
 
     @Transactional
@@ -27,89 +98,520 @@ public class ProductService {
         if (product.getId() != null) {
             product.setId(null); // Ensure new entity
         }
-        return productRepository.save(product);
+        product.setVersion(null);
+        Product savedProduct = productRepository.save(product);
+        recordChange(ProductEvent.Type.CREATE, List.of(savedProduct.getId()));
+        return savedProduct;
     }
 
-    @Transactional(readOnly = true)
+    // SUPPORTS: a cache hit must not borrow a pooled connection; misses run in the repository's read-only transaction
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
     public Optional<Product> getProductById(Long id) {
         if (id == null || id <= 0) {
             return Optional.empty();
         }
-        return productRepository.findById(id);
+        // Loads go to the primary: a row read from a lagging replica would stay cached long after the lag is gone.
+        // Read-your-writes for write-behind prices not flushed yet; until then the row has no version for them
+        Function<Long, Optional<Product>> loader = key -> ReplicaRoutingDataSource.onPrimary(() -> productRepository.findById(key));
+        Optional<Product> cached = productCache.get(id, loader);
+        if (priceWriteBehind == null) {
+            return cached;
+        }
+        return cached.map(product -> {
+            Double bufferedPrice = priceWriteBehind.get(product.getId());
+            if (bufferedPrice != null) {
+                product.setPrice(bufferedPrice);
+                product.setVersion(null);
+            }
+            return product;
+        });
+    }
+
+    /**
+     * Token for list ETags; read it before the list itself so a concurrent write can only
+     * make the ETag older than the body, never newer.
+     */
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
+    public long getChangeToken() {
+        return productChangeToken.current();
+    }
+
+    /**
+     * The plain listing: one page of the default size after {@code after}, in id order. Only the
+     * NDJSON stream and the export hand out the whole table.
+     */
+    @Transactional(readOnly = true)
+    public List<ProductSummary> getAllProducts(Long after) {
+        long cursor = after == null || after < 0 ? 0L : after;
+        return productRepository.findSummariesByIdGreaterThan(cursor, Limit.of(defaultPageSize));
+    }
+
+    public int getDefaultPageSize() {
+        return defaultPageSize;
+    }
+
+    /**
+     * {@link #getProductsPage(Long, Double, Integer, Double, Double, String)} reading only the
+     * requested columns (plus id). Price-sorted pages also read the price for their cursor.
+     *
+     * @throws ProductValidationException for an unknown field, or a sort {@code getProductsPage} rejects
+     */
+    @Transactional(readOnly = true)
+    public ProductFieldsPage getProductFieldsPage(String fields, Long after, Double afterPrice, Integer limit,
+                                                  Double minPrice, Double maxPrice, String sort) {
+        Set<ProductField> selected = ProductField.parse(fields);
+        int pageSize = limit == null || limit <= 0 ? defaultPageSize : Math.min(limit, maxPageSize);
+        String order = listingOrder(sort, minPrice != null || maxPrice != null);
+
+        if (order.equals("id")) {
+            long cursor = after == null || after < 0 ? 0L : after;
+            List<Map<String, Object>> items = productRepository.findFields(selected, cursor, pageSize);
+            Long nextCursor = items.size() < pageSize ? null : (Long) items.get(items.size() - 1).get("id");
+            return new ProductFieldsPage(items, nextCursor);
+        }
+
+        Set<ProductField> read = EnumSet.copyOf(selected);
+        read.add(ProductField.PRICE);
+        List<Map<String, Object>> items = productRepository.findFieldsByPrice(read,
+                minPrice == null ? -Double.MAX_VALUE : minPrice,
+                maxPrice == null ? Double.MAX_VALUE : maxPrice,
+                after == null ? null : afterPrice,
+                after == null ? 0L : after,
+                order.equals("price,desc"),
+                pageSize);
+        Map<String, Object> last = items.isEmpty() ? null : items.get(items.size() - 1);
+        ProductFieldsPage page = items.size() < pageSize
+                ? new ProductFieldsPage(items, null)
+                : new ProductFieldsPage(items, (Long) last.get("id"), (Double) last.get("price"));
+        if (!selected.contains(ProductField.PRICE)) {
+            items.forEach(row -> row.remove(ProductField.PRICE.attribute()));
+        }
+        return page;
+    }
+
+    @Transactional(readOnly = true)
+    public ProductPage getProductsPage(Long after, Integer limit) {
+        return getProductsPage(after, null, limit, null, null, null);
+    }
+
+    /**
+     * Keyset page with an optional price range. {@code sort} is {@code id} (default without a
+     * range), {@code price} / {@code price,asc} (default with one) or {@code price,desc};
+     * price-sorted pages continue from the ({@code afterPrice}, {@code after}) pair returned
+     * with the previous page.
+     *
+     * @throws ProductValidationException for an unknown sort, or {@code sort=id} with a price range,
+     *         which could not be served from the (price, id) index
+     */
+    @Transactional(readOnly = true)
+    public ProductPage getProductsPage(Long after, Double afterPrice, Integer limit,
+                                       Double minPrice, Double maxPrice, String sort) {
+        int pageSize = limit == null || limit <= 0 ? defaultPageSize : Math.min(limit, maxPageSize);
+        double min = minPrice == null ? -Double.MAX_VALUE : minPrice;
+        double max = maxPrice == null ? Double.MAX_VALUE : maxPrice;
+        String order = listingOrder(sort, minPrice != null || maxPrice != null);
+
+        List<Product> items;
+        switch (order) {
+            case "id":
+                long cursor = after == null || after < 0 ? 0L : after;
+                items = productRepository.findByIdGreaterThanOrderByIdAsc(cursor, Limit.of(pageSize));
+                break;
+            case "price":
+                items = afterPrice == null || after == null
+                        ? productRepository.findPriceRangeAscending(min, max, -Double.MAX_VALUE, 0L, pageSize)
+                        : productRepository.findPriceRangeAscending(min, max, afterPrice, after, pageSize);
+                break;
+            case "price,desc":
+                items = afterPrice == null || after == null
+                        ? productRepository.findPriceRangeDescending(min, max, Double.MAX_VALUE, Long.MAX_VALUE, pageSize)
+                        : productRepository.findPriceRangeDescending(min, max, afterPrice, after, pageSize);
+                break;
+            default:
+                throw new IllegalStateException("Unexpected listing order: " + order);
+        }
+
+        if (items.size() < pageSize) {
+            return new ProductPage(items, null);
+        }
+        Product last = items.get(items.size() - 1);
+        return order.equals("id")
+                ? new ProductPage(items, last.getId())
+                : new ProductPage(items, last.getId(), last.getPrice());
+    }
+
+    /**
+     * Case-insensitive name search through the trigram index. Substring terms shorter than
+     * three characters cannot use trigrams, so they are matched as prefixes instead.
+     */
+    @Transactional(readOnly = true)
+    public ProductSearchResult searchProducts(String query, boolean prefixOnly, Integer limit, Integer offset) {
+        int pageSize = limit == null || limit <= 0 ? defaultPageSize : Math.min(limit, maxPageSize);
+        int skip = offset == null || offset < 0 ? 0 : offset;
+        String term = query == null ? "" : query.trim().toLowerCase(Locale.ROOT);
+        if (term.isEmpty()) {
+            return new ProductSearchResult(List.of(), skip, pageSize, false);
+        }
+
+        String escaped = term.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+        String prefixPattern = escaped + "%";
+        String pattern = prefixOnly || term.length() < 3 ? prefixPattern : "%" + prefixPattern;
+
+        // One extra row tells whether another page exists
+        List<Product> items = productRepository.searchByName(term, pattern, prefixPattern, pageSize + 1, skip);
+        boolean hasMore = items.size() > pageSize;
+        return new ProductSearchResult(hasMore ? items.subList(0, pageSize) : items, skip, pageSize, hasMore);
     }
 
     @Transactional(readOnly = true)
-    public List<Product> getAllProducts() {
-        return productRepository.findAll();
+    public void streamAllProducts(Consumer<Product> consumer) {
+        try (Stream<Product> products = productRepository.streamAllByOrderByIdAsc()) {
+            products.forEach(product -> {
+                consumer.accept(product);
+                // Drop the row from the persistence context so memory stays flat
+                entityManager.detach(product);
+            });
+        }
     }
 
     @Transactional
     public Product updateProduct(Long id, Product productDetails) {
+        return updateProduct(id, productDetails, null);
+    }
+
+    /**
+     * @param expectedVersion version the client last saw (from {@code If-Match}), or null to update unconditionally
+     * @throws ProductVersionMismatchException when the product has been changed since that version
+     */
+    @Transactional
+    public Product updateProduct(Long id, Product productDetails, Long expectedVersion) {
         if (id == null || id <= 0) {
             throw new ProductNotFoundException("Invalid product ID: " + id);
         }
 
-        Product product = productRepository.findById(id)
-                .orElseThrow(() -> new ProductNotFoundException("Product not found with id: " + id));
+        return applyUpdate(id, productDetails.getName(), productDetails.getPrice(), expectedVersion);
+    }
+
+    @Transactional
+    public Product partialUpdateProduct(Long id, Map<String, Object> updates) {
+        return partialUpdateProduct(id, updates, null);
+    }
+
+    /**
+     * The changed fields are checked against the entity's constraints before the UPDATE, which
+     * bypasses Hibernate's own validation. A patch that changes nothing, such as {@code {}}, is
+     * not written and returns the product at its current version.
+     *
+     * @throws ProductValidationException when a given field violates the product's constraints
+     */
+    @Transactional
+    public Product partialUpdateProduct(Long id, Map<String, Object> updates, Long expectedVersion) {
+        if (id == null || id <= 0) {
+            throw new ProductNotFoundException("Invalid product ID: " + id);
+        }
 
-        if (productDetails.getName() != null) {
-            product.setName(productDetails.getName());
+        Product changes = toChanges(updates);
+        String violations = fieldViolations(validator, changes);
+        if (violations != null) {
+            throw new ProductValidationException(violations);
+        }
+        return applyUpdate(id, changes.getName(), changes.getPrice(), expectedVersion);
+    }
+
+    /**
+     * Write-behind path for a PATCH that only sets {@code price}: the price is acknowledged from
+     * memory and written by the next flush, coalesced with later prices for the same id. Empty
+     * when write-behind is off or the update has other fields, in which case the caller uses
+     * {@link #partialUpdateProduct}.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public Optional<Product> bufferPriceUpdate(Long id, Map<String, Object> updates) {
+        if (priceWriteBehind == null || updates.size() != 1 || !(updates.get("price") instanceof Number)) {
+            return Optional.empty();
         }
-        if (productDetails.getPrice() != null) {
-            product.setPrice(productDetails.getPrice());
+        double price = ((Number) updates.get("price")).doubleValue();
+        Set<ConstraintViolation<Product>> violations = validator.validateValue(Product.class, "price", price);
+        if (!violations.isEmpty()) {
+            throw new ProductValidationException(violations.iterator().next().getMessage());
         }
 
-        return productRepository.save(product);
+        Product product = getProductById(id)
+                .orElseThrow(() -> new ProductNotFoundException("Product not found with id: " + id));
+        if (!priceWriteBehind.offer(id, price)) {
+            return Optional.empty();
+        }
+        product.setPrice(price);
+        product.setVersion(null);
+        return Optional.of(product);
     }
 
     @Transactional
-    public Product partialUpdateProduct(Long id, Map<String, Object> updates) {
+    public void deleteProduct(Long id) {
         if (id == null || id <= 0) {
             throw new ProductNotFoundException("Invalid product ID: " + id);
         }
 
-        Product product = productRepository.findById(id)
-                .orElseThrow(() -> new ProductNotFoundException("Product not found with id: " + id));
+        takeBufferedPrices(List.of(id)); // A pending price must not outlive the row
+        if (productJdbcRepository.deleteById(id) == 0) {
+            throw new ProductNotFoundException("Product not found with id: " + id);
+        }
+        recordChange(ProductEvent.Type.DELETE, List.of(id));
+    }
+
+    @Transactional
+    public List<Product> createProducts(List<Product> products) {
+        if (uniqueNames) {
+            return upsertProducts(products);
+        }
+        // One multi-row INSERT per chunk; ids supplied by the client are ignored
+        List<Product> savedProducts = new ArrayList<>(products.size());
+        for (int from = 0; from < products.size(); from += bulkChunkSize) {
+            List<Product> chunk = products.subList(from, Math.min(from + bulkChunkSize, products.size()));
+            savedProducts.addAll(productJdbcRepository.insertAll(chunk));
+        }
+        recordChange(ProductEvent.Type.CREATE, savedProducts.stream().map(Product::getId).toList());
+        return savedProducts;
+    }
+
+    /**
+     * Bulk create with unique names: one {@code INSERT ... ON CONFLICT} per chunk inserts new names
+     * and sets the price of existing ones, so a re-sent batch changes nothing and returns the same
+     * products. A write-behind price still pending for an existing product is discarded, since
+     * the upsert's price is newer and a later flush would otherwise put the older one back.
+     */
+    private List<Product> upsertProducts(List<Product> products) {
+        if (priceWriteBehind != null) {
+            // Taken before the first upsert, so waiting on a running flush never happens while holding row locks
+            List<Long> existingIds = new ArrayList<>();
+            for (int from = 0; from < products.size(); from += bulkChunkSize) {
+                List<Product> chunk = products.subList(from, Math.min(from + bulkChunkSize, products.size()));
+                existingIds.addAll(productJdbcRepository.findIdsByNames(chunk.stream().map(Product::getName).toList()));
+            }
+            takeBufferedPrices(existingIds);
+        }
+        List<Product> savedProducts = new ArrayList<>(products.size());
+        for (int from = 0; from < products.size(); from += bulkChunkSize) {
+            List<Product> chunk = products.subList(from, Math.min(from + bulkChunkSize, products.size()));
+            // Sets: entries repeating a name share one product
+            Set<Long> createdIds = new HashSet<>();
+            Set<Long> updatedIds = new HashSet<>();
+            for (ProductJdbcRepository.UpsertedRow row : productJdbcRepository.upsertAll(chunk)) {
+                savedProducts.add(row.product());
+                if (row.change() == ProductEvent.Type.CREATE) {
+                    createdIds.add(row.product().getId());
+                } else if (row.change() == ProductEvent.Type.UPDATE) {
+                    updatedIds.add(row.product().getId());
+                }
+            }
+            if (!createdIds.isEmpty()) {
+                recordChange(ProductEvent.Type.CREATE, createdIds);
+            }
+            if (!updatedIds.isEmpty()) {
+                recordChange(ProductEvent.Type.UPDATE, updatedIds);
+            }
+        }
+        return savedProducts;
+    }
+
+    /**
+     * Applies many partial updates with one set-based UPDATE per chunk. Each entry uses the
+     * same field handling as {@link #partialUpdateProduct}; outcomes are returned in request order.
+     *
+     * @throws ProductValidationException when an entry's id is not an integral number; nothing is written
+     */
+    @Transactional
+    public List<ProductUpdateOutcome> partialUpdateProducts(List<Map<String, Object>> updates) {
+        List<ProductUpdateOutcome> outcomes = new ArrayList<>(updates.size());
+        // Three bind parameters per row against PostgreSQL's 32767 limit
+        int chunkSize = Math.min(bulkChunkSize, 10_000);
+        List<Long> ids = new ArrayList<>(updates.size());
+        List<Product> changes = new ArrayList<>(updates.size());
+        List<String> errors = new ArrayList<>(updates.size());
+        Set<Long> validIds = new HashSet<>();
+        for (Map<String, Object> entry : updates) {
+            Map<String, Object> update = entry != null ? entry : Map.of();
+            Long id = toId(update.get("id"));
+            Product change = toChanges(update);
+            String error = validateChanges(id, change);
+            ids.add(id);
+            changes.add(change);
+            errors.add(error);
+            if (error == null) {
+                validIds.add(id);
+            }
+        }
+        // Taken before the first UPDATE, so waiting on a running flush never happens while holding row locks
+        Map<Long, Double> bufferedPrices = takeBufferedPrices(validIds);
+
+        for (int from = 0; from < updates.size(); from += chunkSize) {
+            int to = Math.min(from + chunkSize, updates.size());
+            Map<Long, Product> changesById = new LinkedHashMap<>();
+            for (int i = from; i < to; i++) {
+                if (errors.get(i) == null) {
+                    // Repeated ids in one chunk: later fields win
+                    changesById.merge(ids.get(i), changes.get(i), ProductService::mergeChanges);
+                }
+            }
+            changesById.forEach((id, change) -> {
+                Double bufferedPrice = bufferedPrices.remove(id);
+                if (bufferedPrice != null && change.getPrice() == null) {
+                    change.setPrice(bufferedPrice);
+                }
+            });
+
+            Set<Long> updatedIds = productJdbcRepository.updateAll(changesById);
+            for (int i = from; i < to; i++) {
+                Long id = ids.get(i);
+                if (errors.get(i) != null) {
+                    outcomes.add(ProductUpdateOutcome.invalid(id, errors.get(i)));
+                } else if (updatedIds.contains(id)) {
+                    outcomes.add(ProductUpdateOutcome.updated(id));
+                } else {
+                    outcomes.add(ProductUpdateOutcome.notFound(id));
+                }
+            }
+            if (!updatedIds.isEmpty()) {
+                recordChange(ProductEvent.Type.UPDATE, updatedIds);
+            }
+        }
+        return outcomes;
+    }
+
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
+    public boolean existsById(Long id) {
+        return getProductById(id).isPresent();
+    }
+
+    // Compare-and-set on the version column, so no row lock is held between the client's read and write
+    private Product applyUpdate(long id, String name, Double price, Long expectedVersion) {
+        Double bufferedPrice = takeBufferedPrices(List.of(id)).get(id);
+        Double newPrice = price != null ? price : bufferedPrice;
+        Optional<Product> updated = expectedVersion == null
+                ? productJdbcRepository.update(id, name, newPrice)
+                : productJdbcRepository.updateIfVersion(id, name, newPrice, expectedVersion);
+        if (updated.isEmpty()) {
+            // Nothing written: no such row, another version, or the row already holds these values
+            Product current = productRepository.findById(id)
+                    .orElseThrow(() -> new ProductNotFoundException("Product not found with id: " + id));
+            if (expectedVersion != null && !expectedVersion.equals(current.getVersion())) {
+                throw new ProductVersionMismatchException("Product " + id + " is no longer at version " + expectedVersion);
+            }
+            // Unchanged, so the version, the ETags clients hold and the change token stay as they are
+            return current;
+        }
+
+        recordChange(ProductEvent.Type.UPDATE, List.of(id));
+        return updated.get();
+    }
 
+    private Map<Long, Double> takeBufferedPrices(Collection<Long> ids) {
+        return priceWriteBehind != null ? priceWriteBehind.take(ids) : new HashMap<>();
+    }
+
+    // Every write path ends here: outbox event, cache invalidation and list token in the writing transaction
+    private void recordChange(ProductEvent.Type type, Collection<Long> ids) {
+        if (type == ProductEvent.Type.DELETE) {
+            productEventService.recordDeletes(ids);
+        } else {
+            productEventService.recordChanges(type, ids);
+        }
+        productCache.invalidateAllAfterCommit(ids);
+        productChangeToken.advanceAfterCommit();
+    }
+
+    // id, price or price,desc; a price range can only be listed through the (price, id) index
+    private static String listingOrder(String sort, boolean priceRange) {
+        String order = sort != null ? sort.trim().toLowerCase(Locale.ROOT).replace(" ", "")
+                : priceRange ? "price" : "id";
+        switch (order) {
+            case "id":
+                if (priceRange) {
+                    throw new ProductValidationException("A price range is listed sorted by price, not by id");
+                }
+                return order;
+            case "price":
+            case "price,asc":
+                return "price";
+            case "price,desc":
+                return order;
+            default:
+                throw new ProductValidationException("Unsupported sort: " + sort);
+        }
+    }
+
+    // Keeps only recognised fields with the right JSON type; anything else is ignored
+    static Product toChanges(Map<String, Object> updates) {
+        Product changes = new Product();
         updates.forEach((key, value) -> {
             switch (key) {
                 case "name":
                     if (value instanceof String) {
-                        product.setName((String) value);
+                        changes.setName((String) value);
                     }
                     break;
                 case "price":
                     if (value instanceof Number) {
-                        product.setPrice(((Number) value).doubleValue());
+                        changes.setPrice(((Number) value).doubleValue());
                     }
                     break;
             }
         });
+        return changes;
+    }
 
-        return productRepository.save(product);
+    /**
+     * The id of a bulk PATCH entry; null when absent. An id such as 1.5 or "7" is not rounded
+     * or parsed into some other product's id.
+     *
+     * @throws ProductValidationException for an id that is not an integral number
+     */
+    private static Long toId(Object value) {
+        if (value == null) {
+            return null;
+        }
+        if (value instanceof Number) {
+            try {
+                return new BigDecimal(value.toString()).longValueExact();
+            } catch (NumberFormatException | ArithmeticException e) {
+                // Not integral, or beyond a long
+            }
+        }
+        throw new ProductValidationException("Product id must be an integral number: " + value);
     }
 
-    @Transactional
-    public void deleteProduct(Long id) {
+    private String validateChanges(Long id, Product changes) {
         if (id == null || id <= 0) {
-            throw new ProductNotFoundException("Invalid product ID: " + id);
+            return "Invalid product ID: " + id;
         }
-
-        Product product = productRepository.findById(id)
-                .orElseThrow(() -> new ProductNotFoundException("Product not found with id: " + id));
-
-        productRepository.delete(product);
+        if (changes.getName() == null && changes.getPrice() == null) {
+            return "No updatable fields (name, price) given";
+        }
+        return fieldViolations(validator, changes);
     }
 
-    @Transactional
-    public List<Product> createProducts(List<Product> products) {
-        // Remove any existing IDs to ensure new entities
-        products.forEach(product -> product.setId(null));
-        return productRepository.saveAll(products);
+    // Checks only the fields being changed, against the entity's own constraints; shared with the reactive PATCH
+    static String fieldViolations(Validator validator, Product changes) {
+        Set<ConstraintViolation<Product>> violations = new HashSet<>();
+        if (changes.getName() != null) {
+            violations.addAll(validator.validateValue(Product.class, "name", changes.getName()));
+        }
+        if (changes.getPrice() != null) {
+            violations.addAll(validator.validateValue(Product.class, "price", changes.getPrice()));
+        }
+        if (violations.isEmpty()) {
+            return null;
+        }
+        return violations.stream()
+                .map(ConstraintViolation::getMessage)
+                .sorted()
+                .collect(Collectors.joining("; "));
     }
 
-    @Transactional(readOnly = true)
-    public boolean existsById(Long id) {
-        return id != null && id > 0 && productRepository.existsById(id);
+    private static Product mergeChanges(Product earlier, Product later) {
+        return new Product(
+                earlier.getId(),
+                later.getName() != null ? later.getName() : earlier.getName(),
+                later.getPrice() != null ? later.getPrice() : earlier.getPrice(),
+                null);
     }
 }
\ No newline at end of file
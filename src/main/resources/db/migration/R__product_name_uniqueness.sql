@@ -0,0 +1,13 @@
+-- Case-insensitive unique product names, switched with product.bulk.unique-names (the
+-- unique-product-names placeholder). Bulk creates then upsert on lower(name) instead of inserting
+-- duplicates. Re-applied whenever the placeholder changes; enabling it fails while duplicate
+-- names exist, so merge those first.
+DO $$
+BEGIN
+    IF '${unique-product-names}' = 'true' THEN
+        CREATE UNIQUE INDEX IF NOT EXISTS uq_products_name_lower ON products (lower(name));
+    ELSE
+        DROP INDEX IF EXISTS uq_products_name_lower;
+    END IF;
+END
+$$;
@@ -0,0 +1,6 @@
+-- Matches the table Hibernate generates for Product; a no-op on databases it already created
+CREATE TABLE IF NOT EXISTS products (
+    id    BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    name  VARCHAR(255)     NOT NULL,
+    price DOUBLE PRECISION NOT NULL
+);
@@ -0,0 +1,6 @@
+-- Trigram index for substring search and relevance ranking on lower(name)
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+CREATE INDEX IF NOT EXISTS idx_products_name_trgm ON products USING gin (lower(name) gin_trgm_ops);
+
+-- B-tree on lower(name) for case-insensitive equality and prefix LIKE
+CREATE INDEX IF NOT EXISTS idx_products_name_lower ON products (lower(name) text_pattern_ops);
@@ -0,0 +1,2 @@
+-- Keyset index for price-range listings sorted by price (scanned backwards for descending order)
+CREATE INDEX IF NOT EXISTS idx_products_price_id ON products (price, id);
@@ -0,0 +1,5 @@
+-- Optimistic-locking version behind per-product ETags and If-Match; existing rows start at 0
+ALTER TABLE products ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 0;
+
+-- Catalog-wide change token for list ETags, advanced on every write without touching products
+CREATE SEQUENCE IF NOT EXISTS product_change_seq;
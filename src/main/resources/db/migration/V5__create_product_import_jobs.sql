@@ -0,0 +1,30 @@
+-- Async bulk import jobs (POST /api/products/bulk?async=true). The payload is kept until the
+-- job finishes, so another node can resume it from committed_chunks after a restart.
+CREATE TABLE IF NOT EXISTS product_import_jobs (
+    id               BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    status           VARCHAR(16) NOT NULL,
+    payload          BYTEA,
+    total_rows       BIGINT      NOT NULL,
+    chunk_size       INTEGER     NOT NULL,
+    committed_chunks INTEGER     NOT NULL DEFAULT 0,
+    committed_rows   BIGINT      NOT NULL DEFAULT 0,
+    rejected_rows    BIGINT      NOT NULL DEFAULT 0,
+    error            TEXT,
+    created_at       TIMESTAMPTZ NOT NULL DEFAULT now(),
+    started_at       TIMESTAMPTZ,
+    heartbeat_at     TIMESTAMPTZ,
+    finished_at      TIMESTAMPTZ
+);
+
+-- Only unfinished jobs are ever polled for
+CREATE INDEX IF NOT EXISTS idx_product_import_jobs_unfinished
+    ON product_import_jobs (id) WHERE status IN ('QUEUED', 'RUNNING');
+
+CREATE TABLE IF NOT EXISTS product_import_job_errors (
+    job_id      BIGINT  NOT NULL REFERENCES product_import_jobs (id) ON DELETE CASCADE,
+    chunk_index INTEGER NOT NULL,
+    row_index   BIGINT,
+    message     TEXT    NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS idx_product_import_job_errors_job ON product_import_job_errors (job_id, chunk_index);
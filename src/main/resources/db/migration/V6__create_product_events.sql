@@ -0,0 +1,28 @@
+-- Transactional outbox of product changes. Writers insert here in the same transaction as
+-- the change; the relay moves committed rows to product_events in batches.
+CREATE TABLE IF NOT EXISTS product_outbox (
+    id          BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    event_type  VARCHAR(8)       NOT NULL,
+    product_id  BIGINT           NOT NULL,
+    name        VARCHAR(255),
+    price       DOUBLE PRECISION,
+    version     BIGINT,
+    occurred_at TIMESTAMPTZ      NOT NULL DEFAULT now()
+);
+
+-- Offsets are taken by the relay, one relay transaction at a time, so they increase in
+-- commit order and a consumer tailing "offset > n" never misses a late commit
+CREATE SEQUENCE IF NOT EXISTS product_event_offset_seq;
+
+CREATE TABLE IF NOT EXISTS product_events (
+    event_offset BIGINT           PRIMARY KEY,
+    event_type   VARCHAR(8)       NOT NULL,
+    product_id   BIGINT           NOT NULL,
+    name         VARCHAR(255),
+    price        DOUBLE PRECISION,
+    version      BIGINT,
+    occurred_at  TIMESTAMPTZ      NOT NULL
+);
+
+-- Retention purges by age
+CREATE INDEX IF NOT EXISTS idx_product_events_occurred_at ON product_events (occurred_at);
@@ -0,0 +1,17 @@
+-- Responses of writes sent with an Idempotency-Key header, replayed to retries of the same
+-- request. A row without a status is a claim of a request still running; expires_at is then a
+-- lease, so a retry can take the key over once the node that claimed it is gone; claim_token
+-- tells the original holder that it lost the key.
+CREATE TABLE IF NOT EXISTS product_idempotency_keys (
+    idempotency_key VARCHAR(255) PRIMARY KEY,
+    claim_token     UUID        NOT NULL,
+    fingerprint     BYTEA,
+    status          INTEGER,
+    content_type    VARCHAR(255),
+    location        VARCHAR(2048),
+    body            BYTEA,
+    created_at      TIMESTAMPTZ NOT NULL DEFAULT now(),
+    expires_at      TIMESTAMPTZ NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS idx_product_idempotency_keys_expires ON product_idempotency_keys (expires_at);
@@ -0,0 +1,68 @@
+package uz.fido.ProductRestApiIntegrationTest;
+
+import org.junit.jupiter.api.*;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import uz.fido.ProductRestApiIntegrationTest.model.Product;
+
+/**
+ * The {@link ProductApiScenarios} against the reactive (WebFlux + R2DBC) stack, plus its own
+ * validation of PATCH bodies.
+ */
+@SpringBootTest(
+        webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = "spring.r2dbc.url=r2dbc:postgresql://localhost:5432/product_test_db")
+@AutoConfigureWebTestClient
+@ActiveProfiles({"test", "reactive"})
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+@DisplayName("Reactive Product REST API Integration Tests")
+class ReactiveProductRestApiIntegrationTest extends ProductApiScenarios {
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @Autowired
+    private DatabaseClient databaseClient;
+
+    @BeforeEach
+    @DisplayName("Clean database before each test")
+    void setUp() {
+        databaseClient.sql("DELETE FROM products").then().block();
+    }
+
+    @Override
+    protected WebTestClient webTestClient() {
+        return webTestClient;
+    }
+
+    @Test
+    @Order(25)
+    @DisplayName("25. Partial update validation test")
+    void testPartialUpdateValidation() {
+        Product product = createProductAndExtract(new Product("Validated", 30.00));
+
+        webTestClient.patch().uri("/api/products/" + product.getId())
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue("{\"price\": -1}")
+                .exchange()
+                .expectStatus().isBadRequest();
+
+        webTestClient.patch().uri("/api/products/" + product.getId())
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue("{\"name\": \"\", \"price\": 31.00}")
+                .exchange()
+                .expectStatus().isBadRequest();
+
+        webTestClient.get().uri("/api/products/" + product.getId())
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.name").isEqualTo("Validated")
+                .jsonPath("$.price").isEqualTo(30.00);
+    }
+}
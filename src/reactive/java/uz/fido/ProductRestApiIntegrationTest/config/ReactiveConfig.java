@@ -0,0 +1,20 @@
+package uz.fido.ProductRestApiIntegrationTest.config;
+
+import org.springframework.boot.web.embedded.netty.NettyReactiveWebServerFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+
+/**
+ * The {@code reactive} profile runs the API on WebFlux and R2DBC. Tomcat is on the classpath
+ * for the servlet stack, so Reactor Netty is selected explicitly here.
+ */
+@Configuration(proxyBeanMethods = false)
+@Profile("reactive")
+public class ReactiveConfig {
+
+    @Bean
+    NettyReactiveWebServerFactory nettyReactiveWebServerFactory() {
+        return new NettyReactiveWebServerFactory();
+    }
+}
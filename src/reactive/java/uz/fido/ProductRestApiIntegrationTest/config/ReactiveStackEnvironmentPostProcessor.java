@@ -0,0 +1,42 @@
+package uz.fido.ProductRestApiIntegrationTest.config;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.context.config.ConfigDataEnvironmentPostProcessor;
+import org.springframework.boot.env.EnvironmentPostProcessor;
+import org.springframework.core.Ordered;
+import org.springframework.core.env.ConfigurableEnvironment;
+import org.springframework.core.env.MapPropertySource;
+import org.springframework.core.env.Profiles;
+
+import java.util.Map;
+
+/**
+ * Keeps R2DBC out of the servlet stack in a build with the reactive Maven profile. Without the
+ * {@code reactive} Spring profile, R2DBC's auto-configuration is excluded: its ConnectionFactory
+ * would otherwise make Spring Boot skip the JDBC DataSource.
+ */
+public class ReactiveStackEnvironmentPostProcessor implements EnvironmentPostProcessor, Ordered {
+
+    private static final String EXCLUDE_PROPERTY = "spring.autoconfigure.exclude";
+    private static final String R2DBC_AUTO_CONFIGURATION = "org.springframework.boot.autoconfigure.r2dbc.R2dbcAutoConfiguration";
+
+    @Override
+    public void postProcessEnvironment(ConfigurableEnvironment environment, SpringApplication application) {
+        if (environment.acceptsProfiles(Profiles.of("reactive"))) {
+            return;
+        }
+        // Added to any exclusions the configuration already has
+        String excluded = environment.getProperty(EXCLUDE_PROPERTY);
+        String exclusions = excluded == null || excluded.isBlank()
+                ? R2DBC_AUTO_CONFIGURATION
+                : excluded + "," + R2DBC_AUTO_CONFIGURATION;
+        environment.getPropertySources().addFirst(
+                new MapPropertySource("servletStackExclusions", Map.of(EXCLUDE_PROPERTY, exclusions)));
+    }
+
+    // After application.properties and the active profiles have been loaded
+    @Override
+    public int getOrder() {
+        return ConfigDataEnvironmentPostProcessor.ORDER + 1;
+    }
+}
@@ -0,0 +1,105 @@
+package uz.fido.ProductRestApiIntegrationTest.controller;
+
+import jakarta.validation.ConstraintViolationException;
+import jakarta.validation.Valid;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import uz.fido.ProductRestApiIntegrationTest.dto.ProductPage;
+import uz.fido.ProductRestApiIntegrationTest.exception.ProductNotFoundException;
+import uz.fido.ProductRestApiIntegrationTest.exception.ProductValidationException;
+import uz.fido.ProductRestApiIntegrationTest.model.Product;
+import uz.fido.ProductRestApiIntegrationTest.service.ReactiveProductService;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The {@link ProductController} contract on WebFlux for the {@code reactive} profile.
+ */
+@RestController
+@Profile("reactive")
+@RequestMapping("/api/products")
+@CrossOrigin(origins = "*") // Configure as needed for your security requirements
+public class ReactiveProductController {
+
+    private final ReactiveProductService productService;
+
+    @Autowired
+    public ReactiveProductController(ReactiveProductService productService) {
+        this.productService = productService;
+    }
+
+    @PostMapping
+    public Mono<ResponseEntity<Product>> createProduct(@RequestBody @Valid Product product) {
+        return productService.createProduct(product)
+                .map(createdProduct -> new ResponseEntity<>(createdProduct, HttpStatus.CREATED));
+    }
+
+    @GetMapping("/{id}")
+    public Mono<ResponseEntity<Product>> getProductById(@PathVariable Long id) {
+        return productService.getProductById(id)
+                .map(ResponseEntity::ok)
+                .defaultIfEmpty(ResponseEntity.notFound().build());
+    }
+
+    // Streamed with backpressure: a JSON array for application/json, one object per line for NDJSON
+    @GetMapping(produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public Flux<Product> getAllProducts() {
+        return productService.getAllProducts();
+    }
+
+    @GetMapping(params = "limit")
+    public Mono<ProductPage> getProductsPage(
+            @RequestParam(required = false) Long after,
+            @RequestParam Integer limit) {
+        return productService.getProductsPage(after, limit);
+    }
+
+    @PutMapping("/{id}")
+    public Mono<ResponseEntity<Product>> updateProduct(
+            @PathVariable Long id,
+            @RequestBody @Valid Product productDetails) {
+        return productService.updateProduct(id, productDetails)
+                .map(ResponseEntity::ok)
+                .onErrorResume(ProductNotFoundException.class, e -> Mono.just(ResponseEntity.notFound().build()));
+    }
+
+    @PatchMapping("/{id}")
+    public Mono<ResponseEntity<Product>> partialUpdateProduct(
+            @PathVariable Long id,
+            @RequestBody Map<String, Object> updates) {
+        return productService.partialUpdateProduct(id, updates)
+                .map(ResponseEntity::ok)
+                .onErrorResume(ProductNotFoundException.class, e -> Mono.just(ResponseEntity.notFound().build()))
+                .onErrorResume(ProductValidationException.class, e -> Mono.just(ResponseEntity.badRequest().build()));
+    }
+
+    @DeleteMapping("/{id}")
+    public Mono<ResponseEntity<Void>> deleteProduct(@PathVariable Long id) {
+        return productService.deleteProduct(id)
+                .then(Mono.just(ResponseEntity.noContent().<Void>build()))
+                .onErrorResume(ProductNotFoundException.class, e -> Mono.just(ResponseEntity.notFound().build()));
+    }
+
+    // The body is decoded element by element and inserted per chunk; the reply is collected to keep the 201/400 contract
+    @PostMapping(value = "/bulk", consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public Mono<ResponseEntity<List<Product>>> createProducts(@RequestBody Flux<Product> products) {
+        return productService.createProducts(products)
+                .collectList()
+                .map(savedProducts -> savedProducts.isEmpty()
+                        ? ResponseEntity.badRequest().<List<Product>>build()
+                        : ResponseEntity.status(HttpStatus.CREATED).body(savedProducts))
+                .onErrorResume(ConstraintViolationException.class, e -> Mono.just(ResponseEntity.badRequest().build()));
+    }
+
+    @GetMapping("/exists/{id}")
+    public Mono<ResponseEntity<Boolean>> productExists(@PathVariable Long id) {
+        return productService.existsById(id).map(ResponseEntity::ok);
+    }
+}
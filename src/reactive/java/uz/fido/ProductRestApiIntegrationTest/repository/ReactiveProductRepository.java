@@ -0,0 +1,113 @@
+package uz.fido.ProductRestApiIntegrationTest.repository;
+
+import io.r2dbc.spi.Readable;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import uz.fido.ProductRestApiIntegrationTest.model.Product;
+
+import java.util.List;
+
+/**
+ * Non-blocking counterpart of {@link ProductRepository} and {@link ProductJdbcRepository}
+ * for the {@code reactive} profile, issuing the same statements through R2DBC.
+ */
+@Repository
+@Profile("reactive")
+public class ReactiveProductRepository {
+
+    private static final String COLUMNS = "id, name, price, version";
+    // Rows requested from PostgreSQL per round trip while a result is being streamed
+    private static final int FETCH_SIZE = 500;
+
+    private final DatabaseClient databaseClient;
+
+    @Autowired
+    public ReactiveProductRepository(DatabaseClient databaseClient) {
+        this.databaseClient = databaseClient;
+    }
+
+    public Mono<Product> insert(Product product) {
+        return databaseClient.sql("INSERT INTO products (name, price, version) VALUES (:name, :price, 0) RETURNING " + COLUMNS)
+                .bind("name", product.getName())
+                .bind("price", product.getPrice())
+                .map(ReactiveProductRepository::toProduct)
+                .one();
+    }
+
+    public Flux<Product> insertAll(List<Product> products) {
+        if (products.isEmpty()) {
+            return Flux.empty();
+        }
+
+        StringBuilder sql = new StringBuilder("INSERT INTO products (name, price, version) VALUES ");
+        for (int i = 0; i < products.size(); i++) {
+            sql.append(i == 0 ? "" : ", ").append("(:name").append(i).append(", :price").append(i).append(", 0)");
+        }
+        sql.append(" RETURNING ").append(COLUMNS);
+
+        DatabaseClient.GenericExecuteSpec spec = databaseClient.sql(sql.toString());
+        for (int i = 0; i < products.size(); i++) {
+            spec = spec.bind("name" + i, products.get(i).getName())
+                    .bind("price" + i, products.get(i).getPrice());
+        }
+        return spec.map(ReactiveProductRepository::toProduct).all();
+    }
+
+    public Mono<Product> findById(long id) {
+        return databaseClient.sql("SELECT " + COLUMNS + " FROM products WHERE id = :id")
+                .bind("id", id)
+                .map(ReactiveProductRepository::toProduct)
+                .one();
+    }
+
+    public Flux<Product> findAll() {
+        return databaseClient.sql("SELECT " + COLUMNS + " FROM products ORDER BY id")
+                .filter(statement -> statement.fetchSize(FETCH_SIZE))
+                .map(ReactiveProductRepository::toProduct)
+                .all();
+    }
+
+    public Flux<Product> findPage(long after, int limit) {
+        return databaseClient.sql("SELECT " + COLUMNS + " FROM products WHERE id > :after ORDER BY id LIMIT :limit")
+                .bind("after", after)
+                .bind("limit", limit)
+                .map(ReactiveProductRepository::toProduct)
+                .all();
+    }
+
+    public Mono<Product> update(long id, String name, Double price) {
+        DatabaseClient.GenericExecuteSpec spec = databaseClient.sql("UPDATE products"
+                + " SET name = COALESCE(:name, name), price = COALESCE(:price, price), version = version + 1"
+                + " WHERE id = :id AND (name <> COALESCE(:name, name) OR price <> COALESCE(:price, price))"
+                + " RETURNING " + COLUMNS);
+        spec = name != null ? spec.bind("name", name) : spec.bindNull("name", String.class);
+        spec = price != null ? spec.bind("price", price) : spec.bindNull("price", Double.class);
+        return spec.bind("id", id)
+                .map(ReactiveProductRepository::toProduct)
+                .one();
+    }
+
+    public Mono<Long> deleteById(long id) {
+        return databaseClient.sql("DELETE FROM products WHERE id = :id")
+                .bind("id", id)
+                .fetch()
+                .rowsUpdated();
+    }
+
+    public Mono<Boolean> existsById(long id) {
+        return databaseClient.sql("SELECT 1 FROM products WHERE id = :id")
+                .bind("id", id)
+                .map(row -> Boolean.TRUE)
+                .first()
+                .defaultIfEmpty(Boolean.FALSE);
+    }
+
+    private static Product toProduct(Readable row) {
+        return new Product(row.get("id", Long.class), row.get("name", String.class),
+                row.get("price", Double.class), row.get("version", Long.class));
+    }
+}
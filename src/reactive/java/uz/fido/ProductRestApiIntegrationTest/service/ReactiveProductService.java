@@ -0,0 +1,142 @@
+package uz.fido.ProductRestApiIntegrationTest.service;
+
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.ConstraintViolationException;
+import jakarta.validation.Validator;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import uz.fido.ProductRestApiIntegrationTest.dto.ProductPage;
+import uz.fido.ProductRestApiIntegrationTest.exception.ProductNotFoundException;
+import uz.fido.ProductRestApiIntegrationTest.exception.ProductValidationException;
+import uz.fido.ProductRestApiIntegrationTest.model.Product;
+import uz.fido.ProductRestApiIntegrationTest.repository.ReactiveProductRepository;
+
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * {@link ProductService} semantics on R2DBC for the {@code reactive} profile.
+ */
+@Service
+@Profile("reactive")
+@Transactional
+public class ReactiveProductService {
+
+    private final ReactiveProductRepository productRepository;
+    private final Validator validator;
+    private final int defaultPageSize;
+    private final int maxPageSize;
+    private final int bulkChunkSize;
+
+    @Autowired
+    public ReactiveProductService(ReactiveProductRepository productRepository,
+                                  Validator validator,
+                                  @Value("${product.pagination.default-limit:100}") int defaultPageSize,
+                                  @Value("${product.pagination.max-limit:1000}") int maxPageSize,
+                                  @Value("${product.bulk.chunk-size:500}") int bulkChunkSize) {
+        this.productRepository = productRepository;
+        this.validator = validator;
+        this.defaultPageSize = defaultPageSize;
+        this.maxPageSize = maxPageSize;
+        // PostgreSQL caps a statement at 32767 bind parameters, two per row
+        this.bulkChunkSize = Math.max(1, Math.min(bulkChunkSize, 16_000));
+    }
+
+    public Mono<Product> createProduct(Product product) {
+        return productRepository.insert(product);
+    }
+
+    @Transactional(readOnly = true)
+    public Mono<Product> getProductById(Long id) {
+        if (id == null || id <= 0) {
+            return Mono.empty();
+        }
+        return productRepository.findById(id);
+    }
+
+    @Transactional(readOnly = true)
+    public Flux<Product> getAllProducts() {
+        return productRepository.findAll();
+    }
+
+    @Transactional(readOnly = true)
+    public Mono<ProductPage> getProductsPage(Long after, Integer limit) {
+        int pageSize = limit == null || limit <= 0 ? defaultPageSize : Math.min(limit, maxPageSize);
+        long cursor = after == null || after < 0 ? 0L : after;
+
+        return productRepository.findPage(cursor, pageSize)
+                .collectList()
+                .map(items -> new ProductPage(items,
+                        items.size() < pageSize ? null : items.get(items.size() - 1).getId()));
+    }
+
+    public Mono<Product> updateProduct(Long id, Product productDetails) {
+        if (id == null || id <= 0) {
+            return Mono.error(new ProductNotFoundException("Invalid product ID: " + id));
+        }
+        return updateOrCurrent(id, productDetails.getName(), productDetails.getPrice());
+    }
+
+    /**
+     * The changed fields are checked against the entity's constraints before the UPDATE, as on the servlet stack.
+     */
+    public Mono<Product> partialUpdateProduct(Long id, Map<String, Object> updates) {
+        if (id == null || id <= 0) {
+            return Mono.error(new ProductNotFoundException("Invalid product ID: " + id));
+        }
+        Product changes = ProductService.toChanges(updates);
+        String violations = ProductService.fieldViolations(validator, changes);
+        if (violations != null) {
+            return Mono.error(new ProductValidationException(violations));
+        }
+        return updateOrCurrent(id, changes.getName(), changes.getPrice());
+    }
+
+    // A row that already holds the values is not written and keeps its version
+    private Mono<Product> updateOrCurrent(long id, String name, Double price) {
+        return productRepository.update(id, name, price)
+                .switchIfEmpty(Mono.defer(() -> productRepository.findById(id)))
+                .switchIfEmpty(Mono.error(() -> new ProductNotFoundException("Product not found with id: " + id)));
+    }
+
+    public Mono<Void> deleteProduct(Long id) {
+        if (id == null || id <= 0) {
+            return Mono.error(new ProductNotFoundException("Invalid product ID: " + id));
+        }
+        return productRepository.deleteById(id)
+                .flatMap(deleted -> deleted == 0
+                        ? Mono.error(new ProductNotFoundException("Product not found with id: " + id))
+                        : Mono.empty());
+    }
+
+    /**
+     * Validates and inserts the incoming products chunk by chunk as they are decoded, so the
+     * request body is consumed with backpressure. Any invalid product rolls back the whole call.
+     */
+    public Flux<Product> createProducts(Flux<Product> products) {
+        return products
+                .doOnNext(this::validate)
+                .buffer(bulkChunkSize)
+                .concatMap(productRepository::insertAll);
+    }
+
+    @Transactional(readOnly = true)
+    public Mono<Boolean> existsById(Long id) {
+        if (id == null || id <= 0) {
+            return Mono.just(false);
+        }
+        return productRepository.existsById(id);
+    }
+
+    private void validate(Product product) {
+        Set<ConstraintViolation<Product>> violations = validator.validate(product);
+        if (!violations.isEmpty()) {
+            throw new ConstraintViolationException(violations);
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package uz.fido.ProductRestApiIntegrationTest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Ticker;
+import org.junit.jupiter.api.*;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import uz.fido.ProductRestApiIntegrationTest.model.Product;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Per-client rate limiting, with load shedding switched on and the token buckets' clock pinned:
+ * tokens refill only when a test advances it, so the outcomes do not depend on timing.
+ */
+@SpringBootTest(
+        webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = {"product.load-shedding.enabled=true", "product.client-id-header=X-Client-Id"})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+@DisplayName("Load Shedding Integration Tests")
+class LoadSheddingIntegrationTest {
+
+    @TestConfiguration
+    static class PinnedTickerConfig {
+
+        @Bean
+        ManualTicker manualTicker() {
+            return new ManualTicker();
+        }
+    }
+
+    static final class ManualTicker implements Ticker {
+
+        private final AtomicLong nanos = new AtomicLong();
+
+        @Override
+        public long read() {
+            return nanos.get();
+        }
+
+        void advance(Duration duration) {
+            nanos.addAndGet(duration.toNanos());
+        }
+    }
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ManualTicker ticker;
+
+    @BeforeEach
+    @DisplayName("Clean database before each test")
+    void setUp() {
+        // Tests run against the Flyway schema, which outlives them; empty every table a test can write to
+        jdbcTemplate.execute("TRUNCATE products, product_outbox, product_events, product_import_jobs,"
+                + " product_import_job_errors, product_idempotency_keys");
+    }
+
+    @Test
+    @Order(1)
+    @DisplayName("1. Per-client rate limiting test")
+    void testPerClientRateLimiting() throws Exception {
+        String created = mockMvc.perform(post("/api/products")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new Product("Rate Limited Item", 5.00))))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsString();
+        Product product = objectMapper.readValue(created, Product.class);
+        // Longer than 64 characters: ids are told apart in full, not by a prefix
+        String greedyClient = "greedy-client-" + "x".repeat(64);
+
+        // Full listings allow a burst of 20 per client, refilled at 10 per second
+        for (int i = 0; i < 20; i++) {
+            mockMvc.perform(get("/api/products").header("X-Client-Id", greedyClient))
+                    .andExpect(status().isOk());
+        }
+        mockMvc.perform(get("/api/products").header("X-Client-Id", greedyClient))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().string("Retry-After", "1"));
+
+        // Other clients, and other endpoints for the same client, are unaffected
+        mockMvc.perform(get("/api/products").header("X-Client-Id", "polite-client"))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/api/products").header("X-Client-Id", greedyClient + "-2"))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/api/products/" + product.getId()).header("X-Client-Id", greedyClient))
+                .andExpect(status().isOk());
+
+        // One second refills 10 tokens
+        ticker.advance(Duration.ofSeconds(1));
+        for (int i = 0; i < 10; i++) {
+            mockMvc.perform(get("/api/products").header("X-Client-Id", greedyClient))
+                    .andExpect(status().isOk());
+        }
+        mockMvc.perform(get("/api/products").header("X-Client-Id", greedyClient))
+                .andExpect(status().isTooManyRequests());
+    }
+}
@@ -0,0 +1,78 @@
+package uz.fido.ProductRestApiIntegrationTest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.*;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import uz.fido.ProductRestApiIntegrationTest.model.Product;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * The Prometheus scrape, with metrics export switched back on (tests leave it off by default)
+ * and Hibernate statistics enabled.
+ */
+@SpringBootTest(
+        webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = "product.metrics.hibernate-statistics=true")
+@AutoConfigureMockMvc
+@AutoConfigureObservability
+@ActiveProfiles("test")
+@DisplayName("Metrics Integration Tests")
+class MetricsIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    @DisplayName("Clean database before each test")
+    void setUp() {
+        // Tests run against the Flyway schema, which outlives them; empty every table a test can write to
+        jdbcTemplate.execute("TRUNCATE products, product_outbox, product_events, product_import_jobs,"
+                + " product_import_job_errors, product_idempotency_keys");
+    }
+
+    @Test
+    @DisplayName("1. Prometheus scrape test")
+    void testPrometheusScrape() throws Exception {
+        String created = mockMvc.perform(post("/api/products")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new Product("Metered Item", 10.00))))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsString();
+        Product product = objectMapper.readValue(created, Product.class);
+        mockMvc.perform(get("/api/products/" + product.getId()))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/api/products"))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/actuator/prometheus"))
+                .andExpect(status().isOk())
+                // Statements per request, by endpoint and status
+                .andExpect(content().string(containsString("product_sql_statements_count{")))
+                .andExpect(content().string(containsString("product_sql_statements_bucket{")))
+                .andExpect(content().string(containsString("uri=\"/api/products/{id}\"")))
+                // @Timed service methods
+                .andExpect(content().string(containsString("product_service_seconds_count{")))
+                .andExpect(content().string(containsString("method=\"getAllProducts\"")))
+                // Pool wait
+                .andExpect(content().string(containsString("hikaricp_connections_acquire_seconds_bucket{")))
+                // Hibernate statistics
+                .andExpect(content().string(containsString("hibernate_sessions_open_total{")))
+                .andExpect(content().string(containsString("hibernate_query_executions_total{")));
+    }
+}
@@ -0,0 +1,397 @@
+package uz.fido.ProductRestApiIntegrationTest;
+
+import org.junit.jupiter.api.*;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import uz.fido.ProductRestApiIntegrationTest.model.Product;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.hamcrest.Matchers.containsInAnyOrder;
+
+/**
+ * The {@code /api/products} contract both stacks serve, written against {@link WebTestClient}:
+ * {@link ProductRestApiIntegrationTest} binds it to MockMvc, the reactive suite to a running server.
+ * Subclasses empty the database before each test and add the scenarios of their own stack from order 25.
+ */
+abstract class ProductApiScenarios {
+
+    protected abstract WebTestClient webTestClient();
+
+    protected Product createProductAndExtract(Product product) {
+        return webTestClient().post().uri("/api/products")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(product)
+                .exchange()
+                .expectStatus().isCreated()
+                .expectBody(Product.class)
+                .returnResult()
+                .getResponseBody();
+    }
+
+    @Test
+    @Order(1)
+    @DisplayName("1. Create product test")
+    void testCreateProduct() {
+        webTestClient().post().uri("/api/products")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(new Product("Laptop", 999.99))
+                .exchange()
+                .expectStatus().isCreated()
+                .expectBody()
+                .jsonPath("$.id").isNotEmpty()
+                .jsonPath("$.name").isEqualTo("Laptop")
+                .jsonPath("$.price").isEqualTo(999.99);
+    }
+
+    @Test
+    @Order(2)
+    @DisplayName("2. Get product by ID test")
+    void testGetProductById() {
+        Product createdProduct = createProductAndExtract(new Product("Phone", 499.99));
+
+        webTestClient().get().uri("/api/products/" + createdProduct.getId())
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.id").isEqualTo(createdProduct.getId())
+                .jsonPath("$.name").isEqualTo("Phone")
+                .jsonPath("$.price").isEqualTo(499.99);
+    }
+
+    @Test
+    @Order(3)
+    @DisplayName("3. Get all products test")
+    void testGetAllProducts() {
+        createProductAndExtract(new Product("Mouse", 29.99));
+        createProductAndExtract(new Product("Keyboard", 59.99));
+
+        webTestClient().get().uri("/api/products")
+                .accept(MediaType.APPLICATION_JSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$").isArray()
+                .jsonPath("$.length()").isEqualTo(2)
+                .jsonPath("$[*].name").value(containsInAnyOrder("Mouse", "Keyboard"))
+                .jsonPath("$[*].price").value(containsInAnyOrder(29.99, 59.99));
+    }
+
+    @Test
+    @Order(4)
+    @DisplayName("4. Update product test")
+    void testUpdateProduct() {
+        Product createdProduct = createProductAndExtract(new Product("Tablet", 299.99));
+
+        webTestClient().put().uri("/api/products/" + createdProduct.getId())
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(new Product("Updated Tablet", 349.99))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.id").isEqualTo(createdProduct.getId())
+                .jsonPath("$.name").isEqualTo("Updated Tablet")
+                .jsonPath("$.price").isEqualTo(349.99);
+    }
+
+    @Test
+    @Order(5)
+    @DisplayName("5. Delete product test")
+    void testDeleteProduct() {
+        Product createdProduct = createProductAndExtract(new Product("Monitor", 199.99));
+
+        webTestClient().delete().uri("/api/products/" + createdProduct.getId())
+                .exchange()
+                .expectStatus().isNoContent();
+
+        webTestClient().get().uri("/api/products/" + createdProduct.getId())
+                .exchange()
+                .expectStatus().isNotFound();
+    }
+
+    @Test
+    @Order(6)
+    @DisplayName("6. Create product with invalid data test")
+    void testCreateProductWithInvalidData() {
+        webTestClient().post().uri("/api/products")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(new Product("", 999.99))
+                .exchange()
+                .expectStatus().isBadRequest();
+
+        webTestClient().post().uri("/api/products")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(new Product("Invalid Product", -10.00))
+                .exchange()
+                .expectStatus().isBadRequest();
+
+        webTestClient().post().uri("/api/products")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue("{\"name\":\"Valid Name\",\"price\":null}")
+                .exchange()
+                .expectStatus().isBadRequest();
+    }
+
+    @Test
+    @Order(7)
+    @DisplayName("7. Get non-existent product test")
+    void testGetNonExistentProduct() {
+        webTestClient().get().uri("/api/products/9999")
+                .exchange()
+                .expectStatus().isNotFound();
+    }
+
+    @Test
+    @Order(8)
+    @DisplayName("8. Update non-existent product test")
+    void testUpdateNonExistentProduct() {
+        webTestClient().put().uri("/api/products/9999")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(new Product("Non-existent", 349.99))
+                .exchange()
+                .expectStatus().isNotFound();
+    }
+
+    @Test
+    @Order(9)
+    @DisplayName("9. Update product with invalid data test")
+    void testUpdateProductWithInvalidData() {
+        Product createdProduct = createProductAndExtract(new Product("Headphones", 89.99));
+
+        webTestClient().put().uri("/api/products/" + createdProduct.getId())
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(new Product("", 99.99))
+                .exchange()
+                .expectStatus().isBadRequest();
+
+        webTestClient().put().uri("/api/products/" + createdProduct.getId())
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(new Product("Valid Name", -20.00))
+                .exchange()
+                .expectStatus().isBadRequest();
+    }
+
+    @Test
+    @Order(10)
+    @DisplayName("10. Delete non-existent product test")
+    void testDeleteNonExistentProduct() {
+        webTestClient().delete().uri("/api/products/9999")
+                .exchange()
+                .expectStatus().isNotFound();
+    }
+
+    @Test
+    @Order(11)
+    @DisplayName("11. Get empty product list test")
+    void testGetEmptyProductList() {
+        webTestClient().get().uri("/api/products")
+                .accept(MediaType.APPLICATION_JSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$").isArray()
+                .jsonPath("$.length()").isEqualTo(0);
+    }
+
+    @Test
+    @Order(12)
+    @DisplayName("12. Create products with duplicate names test")
+    void testCreateDuplicateProductName() {
+        createProductAndExtract(new Product("Speaker", 79.99));
+
+        webTestClient().post().uri("/api/products")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(new Product("Speaker", 89.99))
+                .exchange()
+                .expectStatus().isCreated()
+                .expectBody()
+                .jsonPath("$.name").isEqualTo("Speaker")
+                .jsonPath("$.price").isEqualTo(89.99);
+    }
+
+    @Test
+    @Order(13)
+    @DisplayName("13. Partial update product price test")
+    void testPartialUpdateProductPrice() {
+        Product createdProduct = createProductAndExtract(new Product("Camera", 499.99));
+
+        webTestClient().patch().uri("/api/products/" + createdProduct.getId())
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue("{\"price\": 599.99}")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.id").isEqualTo(createdProduct.getId())
+                .jsonPath("$.name").isEqualTo("Camera")
+                .jsonPath("$.price").isEqualTo(599.99);
+    }
+
+    @Test
+    @Order(14)
+    @DisplayName("14. Partial update product name test")
+    void testPartialUpdateProductName() {
+        Product createdProduct = createProductAndExtract(new Product("Old Camera", 499.99));
+
+        webTestClient().patch().uri("/api/products/" + createdProduct.getId())
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue("{\"name\": \"New Camera\"}")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.id").isEqualTo(createdProduct.getId())
+                .jsonPath("$.name").isEqualTo("New Camera")
+                .jsonPath("$.price").isEqualTo(499.99);
+    }
+
+    @Test
+    @Order(15)
+    @DisplayName("15. Bulk create multiple products test")
+    void testCreateMultipleProducts() {
+        List<Product> products = Arrays.asList(
+                new Product("Charger", 19.99),
+                new Product("Headset", 49.99),
+                new Product("Webcam", 69.99)
+        );
+
+        webTestClient().post().uri("/api/products/bulk")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(products)
+                .exchange()
+                .expectStatus().isCreated()
+                .expectBody()
+                .jsonPath("$").isArray()
+                .jsonPath("$.length()").isEqualTo(3)
+                .jsonPath("$[*].name").value(containsInAnyOrder("Charger", "Headset", "Webcam"))
+                .jsonPath("$[*].price").value(containsInAnyOrder(19.99, 49.99, 69.99));
+    }
+
+    @Test
+    @Order(16)
+    @DisplayName("16. Bulk create with empty list test")
+    void testCreateMultipleProductsWithEmptyList() {
+        webTestClient().post().uri("/api/products/bulk")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue("[]")
+                .exchange()
+                .expectStatus().isBadRequest();
+    }
+
+    @Test
+    @Order(17)
+    @DisplayName("17. Bulk create with invalid product test")
+    void testCreateMultipleProductsWithInvalidData() {
+        List<Product> products = Arrays.asList(
+                new Product("Valid Product", 19.99),
+                new Product("", 49.99), // Invalid: empty name
+                new Product("Another Valid", 69.99)
+        );
+
+        webTestClient().post().uri("/api/products/bulk")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(products)
+                .exchange()
+                .expectStatus().isBadRequest();
+    }
+
+    @Test
+    @Order(18)
+    @DisplayName("18. Invalid HTTP method test")
+    void testInvalidHttpMethod() {
+        webTestClient().post().uri("/api/products/1")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue("{}")
+                .exchange()
+                .expectStatus().isEqualTo(HttpStatus.METHOD_NOT_ALLOWED);
+    }
+
+    @Test
+    @Order(19)
+    @DisplayName("19. Create product with very long name test")
+    void testCreateProductWithLongName() {
+        webTestClient().post().uri("/api/products")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(new Product("A".repeat(256), 99.99))
+                .exchange()
+                .expectStatus().isBadRequest();
+    }
+
+    @Test
+    @Order(20)
+    @DisplayName("20. Partial update non-existent product test")
+    void testPartialUpdateNonExistentProduct() {
+        webTestClient().patch().uri("/api/products/9999")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue("{\"price\": 599.99}")
+                .exchange()
+                .expectStatus().isNotFound();
+    }
+
+    @Test
+    @Order(21)
+    @DisplayName("21. Product exists endpoint test")
+    void testProductExists() {
+        Product createdProduct = createProductAndExtract(new Product("Test Product", 123.45));
+
+        webTestClient().get().uri("/api/products/exists/" + createdProduct.getId())
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(String.class).isEqualTo("true");
+
+        webTestClient().get().uri("/api/products/exists/9999")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(String.class).isEqualTo("false");
+    }
+
+    @Test
+    @Order(22)
+    @DisplayName("22. Invalid JSON format test")
+    void testInvalidJsonFormat() {
+        webTestClient().post().uri("/api/products")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue("{\"name\":\"Test\",\"price\":}")
+                .exchange()
+                .expectStatus().isBadRequest();
+    }
+
+    @Test
+    @Order(23)
+    @DisplayName("23. Null product creation test")
+    void testNullProductCreation() {
+        webTestClient().post().uri("/api/products")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue("null")
+                .exchange()
+                .expectStatus().isBadRequest();
+    }
+
+    @Test
+    @Order(24)
+    @DisplayName("24. Concurrent operations test")
+    void testConcurrentOperations() {
+        Product product1 = createProductAndExtract(new Product("Concurrent Test 1", 100.00));
+        Product product2 = createProductAndExtract(new Product("Concurrent Test 2", 200.00));
+
+        webTestClient().put().uri("/api/products/" + product1.getId())
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(new Product("Updated 1", 150.00))
+                .exchange()
+                .expectStatus().isOk();
+
+        webTestClient().put().uri("/api/products/" + product2.getId())
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(new Product("Updated 2", 250.00))
+                .exchange()
+                .expectStatus().isOk();
+
+        webTestClient().get().uri("/api/products")
+                .accept(MediaType.APPLICATION_JSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.length()").isEqualTo(2)
+                .jsonPath("$[*].name").value(containsInAnyOrder("Updated 1", "Updated 2"));
+    }
+}
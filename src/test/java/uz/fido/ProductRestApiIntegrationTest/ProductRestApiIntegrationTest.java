@@ -1,19 +1,35 @@
 package uz.fido.ProductRestApiIntegrationTest;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
 import org.junit.jupiter.api.*;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Limit;
 import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.reactive.server.WebTestClient;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.client.MockMvcWebTestClient;
+import org.springframework.transaction.PlatformTransactionManager;
 import uz.fido.ProductRestApiIntegrationTest.model.Product;
+import uz.fido.ProductRestApiIntegrationTest.repository.ProductJdbcRepository;
 import uz.fido.ProductRestApiIntegrationTest.repository.ProductRepository;
-
+import uz.fido.ProductRestApiIntegrationTest.service.ProductExportService;
+
+import java.io.ByteArrayOutputStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.zip.GZIPOutputStream;
 
 import static org.hamcrest.Matchers.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
@@ -24,7 +40,7 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 @ActiveProfiles("test")
 @TestMethodOrder(MethodOrderer.OrderAnnotation.class)
 @DisplayName("Product REST API Integration Tests")
-class ProductRestApiIntegrationTest {
+class ProductRestApiIntegrationTest extends ProductApiScenarios {
 
     @Autowired
     private MockMvc mockMvc;
@@ -35,376 +51,828 @@ class ProductRestApiIntegrationTest {
     @Autowired
     private ProductRepository productRepository;
 
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ProductExportService productExportService;
+
+    @Autowired
+    private ProductJdbcRepository productJdbcRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
     @BeforeEach
     @DisplayName("Clean database before each test")
     void setUp() {
-        productRepository.deleteAll();
-        productRepository.flush();
+        // Tests run against the Flyway schema, which outlives them; empty every table a test can write to
+        jdbcTemplate.execute("TRUNCATE products, product_outbox, product_events, product_import_jobs,"
+                + " product_import_job_errors, product_idempotency_keys");
     }
 
-    private MvcResult createProductAndGetResult(Product product) throws Exception {
-        return mockMvc.perform(post("/api/products")
-                        .contentType(MediaType.APPLICATION_JSON)
-                        .content(objectMapper.writeValueAsString(product)))
-                .andExpect(status().isCreated())
-                .andReturn();
-    }
-
-    private Product createProductAndExtract(Product product) throws Exception {
-        MvcResult result = createProductAndGetResult(product);
-        String responseJson = result.getResponse().getContentAsString();
-        return objectMapper.readValue(responseJson, Product.class);
+    @Override
+    protected WebTestClient webTestClient() {
+        return MockMvcWebTestClient.bindTo(mockMvc).build();
     }
 
     @Test
-    @Order(1)
-    @DisplayName("1. Create product test")
-    void testCreateProduct() throws Exception {
-        Product product = new Product("Laptop", 999.99);
-
-        mockMvc.perform(post("/api/products")
-                        .contentType(MediaType.APPLICATION_JSON)
-                        .content(objectMapper.writeValueAsString(product)))
-                .andExpect(status().isCreated())
-                .andExpect(jsonPath("$.id").isNotEmpty())
-                .andExpect(jsonPath("$.name").value("Laptop"))
-                .andExpect(jsonPath("$.price").value(999.99));
+    @Order(25)
+    @DisplayName("25. Keyset pagination test")
+    void testKeysetPagination() throws Exception {
+        Product first = createProductAndExtract(new Product("Page Item 1", 10.00));
+        Product second = createProductAndExtract(new Product("Page Item 2", 20.00));
+        Product third = createProductAndExtract(new Product("Page Item 3", 30.00));
+
+        mockMvc.perform(get("/api/products").param("limit", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items", hasSize(2)))
+                .andExpect(jsonPath("$.items[0].id").value(first.getId()))
+                .andExpect(jsonPath("$.items[1].id").value(second.getId()))
+                .andExpect(jsonPath("$.nextCursor").value(second.getId()));
+
+        mockMvc.perform(get("/api/products")
+                        .param("after", String.valueOf(second.getId()))
+                        .param("limit", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items", hasSize(1)))
+                .andExpect(jsonPath("$.items[0].id").value(third.getId()))
+                .andExpect(jsonPath("$.nextCursor").doesNotExist());
     }
 
     @Test
-    @Order(2)
-    @DisplayName("2. Get product by ID test")
-    void testGetProductById() throws Exception {
-        Product createdProduct = createProductAndExtract(new Product("Phone", 499.99));
+    @Order(26)
+    @DisplayName("26. Stream products as NDJSON test")
+    void testStreamProductsAsNdjson() throws Exception {
+        createProductAndExtract(new Product("Stream Item 1", 11.00));
+        createProductAndExtract(new Product("Stream Item 2", 22.00));
+
+        MvcResult result = mockMvc.perform(get("/api/products").accept(MediaType.APPLICATION_NDJSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
 
-        mockMvc.perform(get("/api/products/" + createdProduct.getId()))
+        String body = mockMvc.perform(asyncDispatch(result))
                 .andExpect(status().isOk())
-                .andExpect(jsonPath("$.id").value(createdProduct.getId()))
-                .andExpect(jsonPath("$.name").value("Phone"))
-                .andExpect(jsonPath("$.price").value(499.99));
+                .andReturn().getResponse().getContentAsString();
+
+        String[] lines = body.trim().split("\n");
+        Assertions.assertEquals(2, lines.length);
+        Assertions.assertEquals("Stream Item 1", objectMapper.readValue(lines[0], Product.class).getName());
+        Assertions.assertEquals("Stream Item 2", objectMapper.readValue(lines[1], Product.class).getName());
     }
 
     @Test
-    @Order(3)
-    @DisplayName("3. Get all products test")
-    void testGetAllProducts() throws Exception {
-        createProductAndExtract(new Product("Mouse", 29.99));
-        createProductAndExtract(new Product("Keyboard", 59.99));
+    @Order(27)
+    @DisplayName("27. Streamed CSV import test")
+    void testImportProductsFromCsv() throws Exception {
+        String csv = "name,price\n"
+                + "Cable,9.99\n"
+                + "\"Adapter, USB-C\",14.50\n"
+                + ",5.00\n"
+                + "Hub,-1\n";
+
+        mockMvc.perform(post("/api/products/import")
+                        .contentType("text/csv")
+                        .content(csv))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.accepted").value(2))
+                .andExpect(jsonPath("$.rejected").value(2))
+                .andExpect(jsonPath("$.errors[*].line", containsInAnyOrder(4, 5)));
 
         mockMvc.perform(get("/api/products"))
                 .andExpect(status().isOk())
-                .andExpect(jsonPath("$").isArray())
-                .andExpect(jsonPath("$", hasSize(2)))
-                .andExpect(jsonPath("$[*].name", containsInAnyOrder("Mouse", "Keyboard")))
-                .andExpect(jsonPath("$[*].price", containsInAnyOrder(29.99, 59.99)));
+                .andExpect(jsonPath("$[*].name", containsInAnyOrder("Cable", "Adapter, USB-C")));
     }
 
     @Test
-    @Order(4)
-    @DisplayName("4. Update product test")
-    void testUpdateProduct() throws Exception {
-        Product createdProduct = createProductAndExtract(new Product("Tablet", 299.99));
-        Product updatedProduct = new Product("Updated Tablet", 349.99);
+    @Order(28)
+    @DisplayName("28. Cached lookups stay consistent with writes test")
+    void testCachedLookupsStayConsistentWithWrites() throws Exception {
+        Product createdProduct = createProductAndExtract(new Product("Cached Lamp", 40.00));
 
-        mockMvc.perform(put("/api/products/" + createdProduct.getId())
-                        .contentType(MediaType.APPLICATION_JSON)
-                        .content(objectMapper.writeValueAsString(updatedProduct)))
+        mockMvc.perform(get("/api/products/" + createdProduct.getId()))
                 .andExpect(status().isOk())
-                .andExpect(jsonPath("$.id").value(createdProduct.getId()))
-                .andExpect(jsonPath("$.name").value("Updated Tablet"))
-                .andExpect(jsonPath("$.price").value(349.99));
-    }
+                .andExpect(jsonPath("$.price").value(40.00));
 
-    @Test
-    @Order(5)
-    @DisplayName("5. Delete product test")
-    void testDeleteProduct() throws Exception {
-        Product createdProduct = createProductAndExtract(new Product("Monitor", 199.99));
+        mockMvc.perform(patch("/api/products/" + createdProduct.getId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"price\": 45.00}"))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/api/products/" + createdProduct.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.price").value(45.00));
 
         mockMvc.perform(delete("/api/products/" + createdProduct.getId()))
                 .andExpect(status().isNoContent());
 
-        mockMvc.perform(get("/api/products/" + createdProduct.getId()))
-                .andExpect(status().isNotFound());
+        mockMvc.perform(get("/api/products/exists/" + createdProduct.getId()))
+                .andExpect(status().isOk())
+                .andExpect(content().string("false"));
     }
 
     @Test
-    @Order(6)
-    @DisplayName("6. Create product with invalid data test")
-    void testCreateProductWithInvalidData() throws Exception {
-        // Test with empty name
-        Product invalidProduct1 = new Product("", 999.99);
-        mockMvc.perform(post("/api/products")
-                        .contentType(MediaType.APPLICATION_JSON)
-                        .content(objectMapper.writeValueAsString(invalidProduct1)))
-                .andExpect(status().isBadRequest());
-
-        // Test with negative price
-        Product invalidProduct2 = new Product("Invalid Product", -10.00);
-        mockMvc.perform(post("/api/products")
-                        .contentType(MediaType.APPLICATION_JSON)
-                        .content(objectMapper.writeValueAsString(invalidProduct2)))
-                .andExpect(status().isBadRequest());
-
-        // Test with null price
-        mockMvc.perform(post("/api/products")
+    @Order(29)
+    @DisplayName("29. Bulk partial update test")
+    void testBulkPartialUpdate() throws Exception {
+        Product first = createProductAndExtract(new Product("Repriced 1", 10.00));
+        Product second = createProductAndExtract(new Product("Repriced 2", 20.00));
+
+        String patchJson = "["
+                + "{\"id\": " + first.getId() + ", \"price\": 11.00},"
+                + "{\"id\": " + second.getId() + ", \"name\": \"Renamed 2\"},"
+                + "{\"id\": 9999, \"price\": 5.00},"
+                + "{\"id\": " + first.getId() + ", \"price\": -1}"
+                + "]";
+
+        mockMvc.perform(patch("/api/products/bulk")
                         .contentType(MediaType.APPLICATION_JSON)
-                        .content("{\"name\":\"Valid Name\",\"price\":null}"))
-                .andExpect(status().isBadRequest());
+                        .content(patchJson))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(4)))
+                .andExpect(jsonPath("$[0].status").value("UPDATED"))
+                .andExpect(jsonPath("$[1].status").value("UPDATED"))
+                .andExpect(jsonPath("$[2].status").value("NOT_FOUND"))
+                .andExpect(jsonPath("$[3].status").value("INVALID"));
+
+        mockMvc.perform(get("/api/products/" + first.getId()))
+                .andExpect(jsonPath("$.price").value(11.00));
+        mockMvc.perform(get("/api/products/" + second.getId()))
+                .andExpect(jsonPath("$.name").value("Renamed 2"))
+                .andExpect(jsonPath("$.price").value(20.00));
+
+        // A fractional or quoted id rejects the whole request instead of updating a truncated id
+        for (String badId : List.of(first.getId() + ".5", "\"" + first.getId() + "\"")) {
+            mockMvc.perform(patch("/api/products/bulk")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content("[{\"id\": " + second.getId() + ", \"price\": 99.00},"
+                                    + "{\"id\": " + badId + ", \"price\": 1.00}]"))
+                    .andExpect(status().isBadRequest());
+        }
+        mockMvc.perform(get("/api/products/" + first.getId()))
+                .andExpect(jsonPath("$.price").value(11.00));
+        mockMvc.perform(get("/api/products/" + second.getId()))
+                .andExpect(jsonPath("$.price").value(20.00));
     }
 
     @Test
-    @Order(7)
-    @DisplayName("7. Get non-existent product test")
-    void testGetNonExistentProduct() throws Exception {
-        mockMvc.perform(get("/api/products/9999"))
-                .andExpect(status().isNotFound());
+    @Order(30)
+    @DisplayName("30. Ranked name search test")
+    void testSearchProductsByName() throws Exception {
+        createProductAndExtract(new Product("Smartphone", 699.99));
+        createProductAndExtract(new Product("Phone Case", 19.99));
+        createProductAndExtract(new Product("Phone", 499.99));
+        createProductAndExtract(new Product("Charger", 29.99));
+
+        mockMvc.perform(get("/api/products/search").param("q", "PHONE"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items", hasSize(3)))
+                .andExpect(jsonPath("$.items[0].name").value("Phone"))
+                .andExpect(jsonPath("$.items[1].name").value("Phone Case"))
+                .andExpect(jsonPath("$.items[2].name").value("Smartphone"))
+                .andExpect(jsonPath("$.hasMore").value(false));
+
+        mockMvc.perform(get("/api/products/search").param("q", "phone").param("prefix", "true").param("limit", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items", hasSize(1)))
+                .andExpect(jsonPath("$.items[0].name").value("Phone"))
+                .andExpect(jsonPath("$.hasMore").value(true));
     }
 
     @Test
-    @Order(8)
-    @DisplayName("8. Update non-existent product test")
-    void testUpdateNonExistentProduct() throws Exception {
-        Product updatedProduct = new Product("Non-existent", 349.99);
+    @Order(31)
+    @DisplayName("31. Price range listing sorted by price test")
+    void testPriceRangeSortedListing() throws Exception {
+        createProductAndExtract(new Product("Budget", 5.00));
+        createProductAndExtract(new Product("Mid A", 50.00));
+        createProductAndExtract(new Product("Mid B", 20.00));
+        createProductAndExtract(new Product("Mid C", 35.00));
+        createProductAndExtract(new Product("Premium", 500.00));
+
+        MvcResult firstPage = mockMvc.perform(get("/api/products")
+                        .param("limit", "2")
+                        .param("minPrice", "10")
+                        .param("maxPrice", "100")
+                        .param("sort", "price,desc"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items[*].name", contains("Mid A", "Mid C")))
+                .andExpect(jsonPath("$.nextPriceCursor").value(35.00))
+                .andReturn();
 
-        mockMvc.perform(put("/api/products/9999")
-                        .contentType(MediaType.APPLICATION_JSON)
-                        .content(objectMapper.writeValueAsString(updatedProduct)))
-                .andExpect(status().isNotFound());
-    }
+        JsonNode page = objectMapper.readTree(firstPage.getResponse().getContentAsString());
 
-    @Test
-    @Order(9)
-    @DisplayName("9. Update product with invalid data test")
-    void testUpdateProductWithInvalidData() throws Exception {
-        Product createdProduct = createProductAndExtract(new Product("Headphones", 89.99));
-
-        // Test with empty name
-        Product invalidUpdate1 = new Product("", 99.99);
-        mockMvc.perform(put("/api/products/" + createdProduct.getId())
-                        .contentType(MediaType.APPLICATION_JSON)
-                        .content(objectMapper.writeValueAsString(invalidUpdate1)))
-                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/products")
+                        .param("limit", "2")
+                        .param("minPrice", "10")
+                        .param("maxPrice", "100")
+                        .param("sort", "price,desc")
+                        .param("after", page.get("nextCursor").asText())
+                        .param("afterPrice", page.get("nextPriceCursor").asText()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items[*].name", contains("Mid B")))
+                .andExpect(jsonPath("$.nextCursor").doesNotExist());
 
-        // Test with negative price
-        Product invalidUpdate2 = new Product("Valid Name", -20.00);
-        mockMvc.perform(put("/api/products/" + createdProduct.getId())
-                        .contentType(MediaType.APPLICATION_JSON)
-                        .content(objectMapper.writeValueAsString(invalidUpdate2)))
+        mockMvc.perform(get("/api/products").param("limit", "2").param("sort", "name"))
                 .andExpect(status().isBadRequest());
     }
 
     @Test
-    @Order(10)
-    @DisplayName("10. Delete non-existent product test")
-    void testDeleteNonExistentProduct() throws Exception {
-        mockMvc.perform(delete("/api/products/9999"))
-                .andExpect(status().isNotFound());
-    }
+    @Order(32)
+    @DisplayName("32. Field selection and pretty output test")
+    void testFieldSelectionAndPrettyOutput() throws Exception {
+        Product first = createProductAndExtract(new Product("Fields 1", 12.00));
+        createProductAndExtract(new Product("Fields 2", 24.00));
 
-    @Test
-    @Order(11)
-    @DisplayName("11. Get empty product list test")
-    void testGetEmptyProductList() throws Exception {
-        mockMvc.perform(get("/api/products"))
+        mockMvc.perform(get("/api/products").param("fields", "name"))
                 .andExpect(status().isOk())
-                .andExpect(jsonPath("$").isArray())
-                .andExpect(jsonPath("$", hasSize(0)));
-    }
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andExpect(jsonPath("$[0].id").value(first.getId()))
+                .andExpect(jsonPath("$[0].name").value("Fields 1"))
+                .andExpect(jsonPath("$[0].price").doesNotExist());
 
-    @Test
-    @Order(12)
-    @DisplayName("12. Create products with duplicate names test")
-    void testCreateDuplicateProductName() throws Exception {
-        createProductAndExtract(new Product("Speaker", 79.99));
+        mockMvc.perform(get("/api/products").param("fields", "price").param("limit", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items[0].price").value(12.00))
+                .andExpect(jsonPath("$.items[0].name").doesNotExist())
+                .andExpect(jsonPath("$.nextCursor").value(first.getId()));
 
-        // Should allow duplicate names with different prices
-        mockMvc.perform(post("/api/products")
-                        .contentType(MediaType.APPLICATION_JSON)
-                        .content(objectMapper.writeValueAsString(new Product("Speaker", 89.99))))
-                .andExpect(status().isCreated())
-                .andExpect(jsonPath("$.name").value("Speaker"))
-                .andExpect(jsonPath("$.price").value(89.99));
+        mockMvc.perform(get("/api/products").param("fields", "colour"))
+                .andExpect(status().isBadRequest());
+
+        String compact = mockMvc.perform(get("/api/products/" + first.getId()))
+                .andReturn().getResponse().getContentAsString();
+        String pretty = mockMvc.perform(get("/api/products/" + first.getId()).param("pretty", "true"))
+                .andReturn().getResponse().getContentAsString();
+        Assertions.assertFalse(compact.contains("\n"));
+        Assertions.assertTrue(pretty.contains("\n"));
     }
 
     @Test
-    @Order(13)
-    @DisplayName("13. Partial update product price test")
-    void testPartialUpdateProductPrice() throws Exception {
-        Product createdProduct = createProductAndExtract(new Product("Camera", 499.99));
+    @Order(33)
+    @DisplayName("33. ETag, conditional GET and If-Match test")
+    void testETagsAndConditionalRequests() throws Exception {
+        Product product = createProductAndExtract(new Product("Tagged", 15.00));
+        String productETag = "\"" + product.getVersion() + "\"";
 
-        String patchJson = "{\"price\": 599.99}";
+        mockMvc.perform(get("/api/products/" + product.getId()))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", productETag));
 
-        mockMvc.perform(patch("/api/products/" + createdProduct.getId())
-                        .contentType(MediaType.APPLICATION_JSON)
-                        .content(patchJson))
+        mockMvc.perform(get("/api/products/" + product.getId()).header("If-None-Match", productETag))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+
+        String listETag = mockMvc.perform(get("/api/products"))
                 .andExpect(status().isOk())
-                .andExpect(jsonPath("$.id").value(createdProduct.getId()))
-                .andExpect(jsonPath("$.name").value("Camera"))
-                .andExpect(jsonPath("$.price").value(599.99));
-    }
+                .andReturn().getResponse().getHeader("ETag");
+        Assertions.assertNotNull(listETag);
 
-    @Test
-    @Order(14)
-    @DisplayName("14. Partial update product name test")
-    void testPartialUpdateProductName() throws Exception {
-        Product createdProduct = createProductAndExtract(new Product("Old Camera", 499.99));
+        mockMvc.perform(get("/api/products").header("If-None-Match", listETag))
+                .andExpect(status().isNotModified());
 
-        String patchJson = "{\"name\": \"New Camera\"}";
+        MvcResult updated = mockMvc.perform(patch("/api/products/" + product.getId())
+                        .header("If-Match", productETag)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"price\": 16.00}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.version").value(product.getVersion() + 1))
+                .andReturn();
+        Assertions.assertNotEquals(productETag, updated.getResponse().getHeader("ETag"));
 
-        mockMvc.perform(patch("/api/products/" + createdProduct.getId())
+        // The old ETag is now stale: no lost update, and the row is unchanged
+        mockMvc.perform(put("/api/products/" + product.getId())
+                        .header("If-Match", productETag)
                         .contentType(MediaType.APPLICATION_JSON)
-                        .content(patchJson))
+                        .content(objectMapper.writeValueAsString(new Product("Overwritten", 99.00))))
+                .andExpect(status().isPreconditionFailed());
+
+        mockMvc.perform(get("/api/products/" + product.getId()).header("If-None-Match", productETag))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.name").value("Tagged"))
+                .andExpect(jsonPath("$.price").value(16.00));
+
+        mockMvc.perform(get("/api/products").header("If-None-Match", listETag))
                 .andExpect(status().isOk())
-                .andExpect(jsonPath("$.id").value(createdProduct.getId()))
-                .andExpect(jsonPath("$.name").value("New Camera"))
-                .andExpect(jsonPath("$.price").value(499.99));
+                .andExpect(header().string("ETag", not(listETag)));
     }
 
     @Test
-    @Order(15)
-    @DisplayName("15. Bulk create multiple products test")
-    void testCreateMultipleProducts() throws Exception {
+    @Order(34)
+    @DisplayName("34. Compressed bulk upload and binary formats test")
+    void testCompressedBulkUploadAndBinaryFormats() throws Exception {
         List<Product> products = Arrays.asList(
-                new Product("Charger", 19.99),
-                new Product("Headset", 49.99),
-                new Product("Webcam", 69.99)
-        );
+                new Product("Gzip 1", 1.50),
+                new Product("Gzip 2", 2.50));
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+            gzip.write(objectMapper.writeValueAsBytes(products));
+        }
 
         mockMvc.perform(post("/api/products/bulk")
                         .contentType(MediaType.APPLICATION_JSON)
-                        .content(objectMapper.writeValueAsString(products)))
+                        .header("Content-Encoding", "gzip")
+                        .content(compressed.toByteArray()))
                 .andExpect(status().isCreated())
-                .andExpect(jsonPath("$").isArray())
-                .andExpect(jsonPath("$", hasSize(3)))
-                .andExpect(jsonPath("$[*].name", containsInAnyOrder("Charger", "Headset", "Webcam")))
-                .andExpect(jsonPath("$[*].price", containsInAnyOrder(19.99, 49.99, 69.99)));
-    }
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andExpect(jsonPath("$[*].name", containsInAnyOrder("Gzip 1", "Gzip 2")));
 
-    @Test
-    @Order(16)
-    @DisplayName("16. Bulk create with empty list test")
-    void testCreateMultipleProductsWithEmptyList() throws Exception {
         mockMvc.perform(post("/api/products/bulk")
                         .contentType(MediaType.APPLICATION_JSON)
-                        .content("[]"))
-                .andExpect(status().isBadRequest());
+                        .header("Content-Encoding", "br")
+                        .content(compressed.toByteArray()))
+                .andExpect(status().isUnsupportedMediaType());
+
+        MediaType smile = MediaType.parseMediaType("application/x-jackson-smile");
+        ObjectMapper smileMapper = new ObjectMapper(new SmileFactory());
+
+        MvcResult created = mockMvc.perform(post("/api/products/bulk")
+                        .contentType(smile)
+                        .accept(smile)
+                        .content(smileMapper.writeValueAsBytes(List.of(new Product("Smile", 3.50)))))
+                .andExpect(status().isCreated())
+                .andExpect(content().contentTypeCompatibleWith(smile))
+                .andReturn();
+
+        JsonNode body = smileMapper.readTree(created.getResponse().getContentAsByteArray());
+        Assertions.assertEquals("Smile", body.get(0).get("name").asText());
+
+        mockMvc.perform(get("/api/products/" + body.get(0).get("id").asLong())
+                        .accept(MediaType.parseMediaType("application/cbor")))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith("application/cbor"));
     }
 
     @Test
-    @Order(17)
-    @DisplayName("17. Bulk create with invalid product test")
-    void testCreateMultipleProductsWithInvalidData() throws Exception {
+    @Order(35)
+    @DisplayName("35. Async bulk import job test")
+    void testAsyncBulkImportJob() throws Exception {
         List<Product> products = Arrays.asList(
-                new Product("Valid Product", 19.99),
-                new Product("", 49.99), // Invalid: empty name
-                new Product("Another Valid", 69.99)
-        );
+                new Product("Job 1", 1.00),
+                new Product("", 2.00),
+                new Product("Job 3", 3.00));
 
-        mockMvc.perform(post("/api/products/bulk")
+        MvcResult submitted = mockMvc.perform(post("/api/products/bulk")
+                        .param("async", "true")
                         .contentType(MediaType.APPLICATION_JSON)
                         .content(objectMapper.writeValueAsString(products)))
-                .andExpect(status().isBadRequest());
+                .andExpect(status().isAccepted())
+                .andExpect(header().exists("Location"))
+                .andExpect(jsonPath("$.totalRows").value(3))
+                .andReturn();
+
+        String location = submitted.getResponse().getHeader("Location");
+        String state = "QUEUED";
+        for (int attempt = 0; attempt < 50 && !state.equals("COMPLETED") && !state.equals("FAILED"); attempt++) {
+            Thread.sleep(100);
+            JsonNode job = objectMapper.readTree(mockMvc.perform(get(location))
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse().getContentAsString());
+            state = job.get("status").asText();
+        }
+        Assertions.assertEquals("COMPLETED", state);
+
+        mockMvc.perform(get(location))
+                .andExpect(jsonPath("$.committedRows").value(2))
+                .andExpect(jsonPath("$.rejectedRows").value(1))
+                .andExpect(jsonPath("$.errors", hasSize(1)))
+                .andExpect(jsonPath("$.errors[0].row").value(1));
+
+        mockMvc.perform(get("/api/products"))
+                .andExpect(jsonPath("$[*].name", containsInAnyOrder("Job 1", "Job 3")));
+
+        mockMvc.perform(get("/api/products/bulk/jobs/999999999"))
+                .andExpect(status().isNotFound());
     }
 
     @Test
-    @Order(18)
-    @DisplayName("18. Invalid HTTP method test")
-    void testInvalidHttpMethod() throws Exception {
-        // POST to a GET endpoint (should return method not allowed)
-        mockMvc.perform(post("/api/products/1")
+    @Order(36)
+    @DisplayName("36. Product change event stream test")
+    void testProductEventStream() throws Exception {
+        long head = Long.parseLong(mockMvc.perform(get("/api/products/events/head"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString());
+
+        Product product = createProductAndExtract(new Product("Event Item", 10.00));
+        mockMvc.perform(patch("/api/products/" + product.getId())
                         .contentType(MediaType.APPLICATION_JSON)
-                        .content("{}"))
-                .andExpect(status().isMethodNotAllowed());
+                        .content("{\"price\": 12.50}"))
+                .andExpect(status().isOk());
+        mockMvc.perform(delete("/api/products/" + product.getId()))
+                .andExpect(status().isNoContent());
+
+        // Events are relayed right after each commit, so they show up shortly after the writes
+        List<JsonNode> events = List.of();
+        for (int attempt = 0; attempt < 50 && events.size() < 3; attempt++) {
+            Thread.sleep(100);
+            MvcResult result = mockMvc.perform(get("/api/products/events")
+                            .param("after", String.valueOf(head))
+                            .param("follow", "false")
+                            .accept(MediaType.APPLICATION_NDJSON))
+                    .andExpect(request().asyncStarted())
+                    .andReturn();
+            result.getAsyncResult(5000);
+
+            List<JsonNode> matching = new ArrayList<>();
+            for (String line : result.getResponse().getContentAsString().split("\n")) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                JsonNode event = objectMapper.readTree(line);
+                if (event.get("productId").asLong() == product.getId()) {
+                    matching.add(event);
+                }
+            }
+            events = matching;
+        }
+
+        Assertions.assertEquals(3, events.size());
+        Assertions.assertEquals("CREATE", events.get(0).get("type").asText());
+        Assertions.assertEquals("UPDATE", events.get(1).get("type").asText());
+        Assertions.assertEquals(12.50, events.get(1).get("price").asDouble());
+        Assertions.assertEquals(1, events.get(1).get("version").asLong());
+        Assertions.assertEquals("DELETE", events.get(2).get("type").asText());
+        Assertions.assertTrue(events.get(0).get("offset").asLong() > head);
+        Assertions.assertTrue(events.get(2).get("offset").asLong() > events.get(1).get("offset").asLong());
+
+        MvcResult sse = mockMvc.perform(get("/api/products/events")
+                        .param("follow", "false")
+                        .header("Last-Event-ID", String.valueOf(head))
+                        .accept(MediaType.TEXT_EVENT_STREAM))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        sse.getAsyncResult(5000);
+        Assertions.assertTrue(sse.getResponse().getContentType().startsWith(MediaType.TEXT_EVENT_STREAM_VALUE));
+        Assertions.assertTrue(sse.getResponse().getContentAsString().contains("event: product\ndata: "));
     }
 
     @Test
-    @Order(19)
-    @DisplayName("19. Create product with very long name test")
-    void testCreateProductWithLongName() throws Exception {
-        String longName = "A".repeat(256); // Exceeds 255 character limit
-        Product product = new Product(longName, 99.99);
+    @Order(37)
+    @DisplayName("37. Load shedding off by default test")
+    void testLoadSheddingOffByDefault() throws Exception {
+        createProductAndExtract(new Product("Unlimited Item", 5.00));
+
+        // Past the burst of 20 full listings the limits would allow; per-client limits are tested in LoadSheddingIntegrationTest
+        for (int i = 0; i < 40; i++) {
+            mockMvc.perform(get("/api/products").header("X-Client-Id", "greedy-client"))
+                    .andExpect(status().isOk());
+        }
+    }
 
-        mockMvc.perform(post("/api/products")
+    @Test
+    @Order(38)
+    @DisplayName("38. Error status mapping test")
+    void testErrorStatusMapping() throws Exception {
+        Product product = createProductAndExtract(new Product("Mapped", 30.00));
+
+        // Invalid PATCH values are rejected instead of being written
+        mockMvc.perform(patch("/api/products/" + product.getId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"price\": -1}"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(patch("/api/products/" + product.getId())
                         .contentType(MediaType.APPLICATION_JSON)
-                        .content(objectMapper.writeValueAsString(product)))
+                        .content("{\"name\": \"\", \"price\": 31.00}"))
                 .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/products/" + product.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.name").value("Mapped"))
+                .andExpect(jsonPath("$.price").value(30.00));
+
+        mockMvc.perform(patch("/api/products/" + product.getId())
+                        .header("If-Match", "\"" + (product.getVersion() + 1) + "\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"price\": 32.00}"))
+                .andExpect(status().isPreconditionFailed());
+
+        // Misses are answered without a body
+        mockMvc.perform(get("/api/products/-1"))
+                .andExpect(status().isNotFound())
+                .andExpect(content().string(""));
+        mockMvc.perform(put("/api/products/99999")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new Product("Missing", 1.00))))
+                .andExpect(status().isNotFound())
+                .andExpect(content().string(""));
+        mockMvc.perform(delete("/api/products/99999"))
+                .andExpect(status().isNotFound())
+                .andExpect(content().string(""));
+
+        mockMvc.perform(get("/api/products/not-a-number"))
+                .andExpect(status().isBadRequest())
+                .andExpect(content().string(""));
     }
 
     @Test
-    @Order(20)
-    @DisplayName("20. Partial update non-existent product test")
-    void testPartialUpdateNonExistentProduct() throws Exception {
-        String patchJson = "{\"price\": 599.99}";
+    @Order(39)
+    @DisplayName("39. Idempotency-Key retry test")
+    void testIdempotencyKeyRetry() throws Exception {
+        String createKey = "create-retry";
+        String body = objectMapper.writeValueAsString(new Product("Retried", 11.00));
+
+        String first = mockMvc.perform(post("/api/products")
+                        .header("Idempotency-Key", createKey)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(body))
+                .andExpect(status().isCreated())
+                .andExpect(header().doesNotExist("Idempotent-Replayed"))
+                .andReturn().getResponse().getContentAsString();
 
-        mockMvc.perform(patch("/api/products/9999")
+        mockMvc.perform(post("/api/products")
+                        .header("Idempotency-Key", createKey)
                         .contentType(MediaType.APPLICATION_JSON)
-                        .content(patchJson))
-                .andExpect(status().isNotFound());
+                        .content(body))
+                .andExpect(status().isCreated())
+                .andExpect(header().string("Idempotent-Replayed", "true"))
+                .andExpect(content().json(first, true));
+        Assertions.assertEquals(1, productRepository.count());
+
+        // The same key for a different request is refused
+        mockMvc.perform(post("/api/products")
+                        .header("Idempotency-Key", createKey)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new Product("Other", 12.00))))
+                .andExpect(status().isUnprocessableEntity());
+
+        String bulkKey = "bulk-retry";
+        String bulkBody = objectMapper.writeValueAsString(List.of(new Product("Retried A", 1.00), new Product("Retried B", 2.00)));
+        String bulkFirst = mockMvc.perform(post("/api/products/bulk")
+                        .header("Idempotency-Key", bulkKey)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(bulkBody))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsString();
+        mockMvc.perform(post("/api/products/bulk")
+                        .header("Idempotency-Key", bulkKey)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(bulkBody))
+                .andExpect(status().isCreated())
+                .andExpect(content().json(bulkFirst, true));
+        Assertions.assertEquals(3, productRepository.count());
+
+        // Failed requests are not stored, so a corrected retry with the same key runs
+        String invalidKey = "invalid-retry";
+        mockMvc.perform(post("/api/products")
+                        .header("Idempotency-Key", invalidKey)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new Product("", 5.00))))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(post("/api/products")
+                        .header("Idempotency-Key", invalidKey)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new Product("Corrected", 5.00))))
+                .andExpect(status().isCreated());
+
+        // Keys are per client, so another client's request under the same key runs on its own
+        mockMvc.perform(post("/api/products")
+                        .with(request -> {
+                            request.setRemoteAddr("10.0.0.2");
+                            return request;
+                        })
+                        .header("Idempotency-Key", createKey)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(body))
+                .andExpect(status().isCreated())
+                .andExpect(header().doesNotExist("Idempotent-Replayed"));
+        Assertions.assertEquals(5, productRepository.count());
     }
 
     @Test
-    @Order(21)
-    @DisplayName("21. Product exists endpoint test")
-    void testProductExists() throws Exception {
-        Product createdProduct = createProductAndExtract(new Product("Test Product", 123.45));
+    @Order(40)
+    @DisplayName("40. Export products and snapshot download test")
+    void testExportProducts() throws Exception {
+        Product quoted = createProductAndExtract(new Product("Export, \"Quoted\"", 10.50));
+        Product plain = createProductAndExtract(new Product("Export Plain", 20.00));
+
+        MvcResult csvResult = mockMvc.perform(get("/api/products/export"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        String csv = mockMvc.perform(asyncDispatch(csvResult))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith("text/csv"))
+                .andReturn().getResponse().getContentAsString(StandardCharsets.UTF_8);
+        List<String> lines = Arrays.asList(csv.trim().split("\n"));
+        Assertions.assertEquals(3, lines.size());
+        Assertions.assertEquals("id,name,price,version", lines.get(0));
+        Assertions.assertTrue(lines.contains(quoted.getId() + ",\"Export, \"\"Quoted\"\"\",10.5,0"));
+        Assertions.assertTrue(lines.contains(plain.getId() + ",Export Plain,20,0"));
+
+        MvcResult binaryResult = mockMvc.perform(get("/api/products/export").param("format", "binary"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        byte[] binary = mockMvc.perform(asyncDispatch(binaryResult))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_OCTET_STREAM))
+                .andReturn().getResponse().getContentAsByteArray();
+        byte[] signature = "PGCOPY\n\377\r\n\0".getBytes(StandardCharsets.ISO_8859_1);
+        Assertions.assertArrayEquals(signature, Arrays.copyOf(binary, signature.length));
 
-        // Test existing product
-        mockMvc.perform(get("/api/products/exists/" + createdProduct.getId()))
+        mockMvc.perform(get("/api/products/export").param("format", "xml"))
+                .andExpect(status().isBadRequest());
+
+        productExportService.refreshSnapshot();
+        MvcResult snapshotResult = mockMvc.perform(get("/api/products/export/snapshot"))
                 .andExpect(status().isOk())
-                .andExpect(content().string("true"));
+                .andExpect(header().string("Accept-Ranges", "bytes"))
+                .andExpect(header().exists("Last-Modified"))
+                .andReturn();
+        byte[] snapshot = snapshotResult.getResponse().getContentAsByteArray();
+        String etag = snapshotResult.getResponse().getHeader("ETag");
+        Assertions.assertNotNull(etag);
+        Assertions.assertEquals(csv, new String(snapshot, StandardCharsets.UTF_8));
+
+        mockMvc.perform(get("/api/products/export/snapshot").header("Range", "bytes=0-9"))
+                .andExpect(status().isPartialContent())
+                .andExpect(header().string("Content-Range", "bytes 0-9/" + snapshot.length))
+                .andExpect(content().bytes(Arrays.copyOfRange(snapshot, 0, 10)));
+
+        mockMvc.perform(get("/api/products/export/snapshot")
+                        .header("Range", "bytes=-5")
+                        .header("If-Range", etag))
+                .andExpect(status().isPartialContent())
+                .andExpect(content().bytes(Arrays.copyOfRange(snapshot, snapshot.length - 5, snapshot.length)));
+
+        // A stale If-Range gets the whole current file
+        mockMvc.perform(get("/api/products/export/snapshot")
+                        .header("Range", "bytes=0-9")
+                        .header("If-Range", "\"stale\""))
+                .andExpect(status().isOk())
+                .andExpect(content().bytes(snapshot));
 
-        // Test non-existing product
-        mockMvc.perform(get("/api/products/exists/9999"))
+        // A Range header that cannot be parsed is ignored
+        mockMvc.perform(get("/api/products/export/snapshot").header("Range", "bytes=nine-ten"))
                 .andExpect(status().isOk())
-                .andExpect(content().string("false"));
+                .andExpect(header().doesNotExist("Content-Range"))
+                .andExpect(content().bytes(snapshot));
+
+        mockMvc.perform(get("/api/products/export/snapshot").header("Range", "bytes=" + snapshot.length + "-"))
+                .andExpect(status().isRequestedRangeNotSatisfiable())
+                .andExpect(header().string("Content-Range", "bytes */" + snapshot.length));
+
+        mockMvc.perform(get("/api/products/export/snapshot").header("If-None-Match", etag))
+                .andExpect(status().isNotModified());
     }
 
     @Test
-    @Order(22)
-    @DisplayName("22. Invalid JSON format test")
-    void testInvalidJsonFormat() throws Exception {
-        String invalidJson = "{\"name\":\"Test\",\"price\":}"; // Malformed JSON
+    @Order(41)
+    @DisplayName("41. Price range listing without limit test")
+    void testPriceRangeListingWithoutLimit() throws Exception {
+        createProductAndExtract(new Product("Budget", 5.00));
+        createProductAndExtract(new Product("Mid A", 50.00));
+        createProductAndExtract(new Product("Mid B", 20.00));
+        createProductAndExtract(new Product("Premium", 500.00));
+
+        mockMvc.perform(get("/api/products")
+                        .param("minPrice", "10")
+                        .param("maxPrice", "100")
+                        .param("sort", "price,desc"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items[*].name", contains("Mid A", "Mid B")))
+                .andExpect(jsonPath("$.nextCursor").doesNotExist());
 
-        mockMvc.perform(post("/api/products")
-                        .contentType(MediaType.APPLICATION_JSON)
-                        .content(invalidJson))
+        // A range alone is sorted by price
+        mockMvc.perform(get("/api/products").param("maxPrice", "100"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items[*].name", contains("Budget", "Mid B", "Mid A")));
+
+        mockMvc.perform(get("/api/products").param("minPrice", "10").param("sort", "id"))
                 .andExpect(status().isBadRequest());
     }
 
     @Test
-    @Order(23)
-    @DisplayName("23. Null product creation test")
-    void testNullProductCreation() throws Exception {
-        mockMvc.perform(post("/api/products")
-                        .contentType(MediaType.APPLICATION_JSON)
-                        .content("null"))
-                .andExpect(status().isBadRequest());
+    @Order(42)
+    @DisplayName("42. Name containment query matches wildcards literally test")
+    void testNameContainmentMatchesWildcardsLiterally() throws Exception {
+        createProductAndExtract(new Product("Sale 50% off", 10.00));
+        createProductAndExtract(new Product("Sale 500 off", 20.00));
+        createProductAndExtract(new Product("snake_case cable", 30.00));
+        createProductAndExtract(new Product("snakeXcase cable", 40.00));
+
+        Assertions.assertEquals(List.of("Sale 50% off"),
+                productRepository.findByNameContainingIgnoreCase("50%").stream().map(Product::getName).toList());
+        Assertions.assertEquals(List.of("snake_case cable"),
+                productRepository.findByNameContainingIgnoreCase("SNAKE_").stream().map(Product::getName).toList());
     }
 
+    @Test
+    @Order(43)
+    @DisplayName("43. Field selection with a price range test")
+    void testFieldSelectionWithPriceRange() throws Exception {
+        createProductAndExtract(new Product("Budget", 5.00));
+        createProductAndExtract(new Product("Mid A", 50.00));
+        Product midB = createProductAndExtract(new Product("Mid B", 20.00));
+        createProductAndExtract(new Product("Premium", 500.00));
+
+        // Without limit a range gets one default-size page in price order
+        mockMvc.perform(get("/api/products").param("fields", "name").param("minPrice", "10").param("maxPrice", "100"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items[*].name", contains("Mid B", "Mid A")))
+                .andExpect(jsonPath("$.items[0].price").doesNotExist())
+                .andExpect(jsonPath("$.nextCursor").doesNotExist());
+
+        mockMvc.perform(get("/api/products")
+                        .param("fields", "name")
+                        .param("minPrice", "10")
+                        .param("limit", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items[*].name", contains("Mid B")))
+                .andExpect(jsonPath("$.nextCursor").value(midB.getId()))
+                .andExpect(jsonPath("$.nextPriceCursor").value(20.00));
+
+        mockMvc.perform(get("/api/products")
+                        .param("fields", "name")
+                        .param("minPrice", "10")
+                        .param("limit", "1")
+                        .param("after", String.valueOf(midB.getId()))
+                        .param("afterPrice", "20.00"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items[*].name", contains("Mid A")));
+
+        mockMvc.perform(get("/api/products").param("fields", "name").param("minPrice", "10").param("sort", "id"))
+                .andExpect(status().isBadRequest());
+    }
 
     @Test
-    @Order(24)
-    @DisplayName("24. Concurrent operations test")
-    void testConcurrentOperations() throws Exception {
-        Product product1 = createProductAndExtract(new Product("Concurrent Test 1", 100.00));
-        Product product2 = createProductAndExtract(new Product("Concurrent Test 2", 200.00));
-
-        // Update both products concurrently (simulated)
-        mockMvc.perform(put("/api/products/" + product1.getId())
+    @Order(44)
+    @DisplayName("44. Plain listing capped at the default page size test")
+    void testPlainListingIsCapped() throws Exception {
+        // One more than product.pagination.default-limit
+        List<Product> products = new ArrayList<>();
+        for (int i = 1; i <= 101; i++) {
+            products.add(new Product("Listed Item " + i, (double) i));
+        }
+        mockMvc.perform(post("/api/products/bulk")
                         .contentType(MediaType.APPLICATION_JSON)
-                        .content(objectMapper.writeValueAsString(new Product("Updated 1", 150.00))))
-                .andExpect(status().isOk());
+                        .content(objectMapper.writeValueAsString(products)))
+                .andExpect(status().isCreated());
+        long lastOnFirstPage = productRepository.findByIdGreaterThanOrderByIdAsc(0L, Limit.of(100)).get(99).getId();
 
-        mockMvc.perform(put("/api/products/" + product2.getId())
-                        .contentType(MediaType.APPLICATION_JSON)
-                        .content(objectMapper.writeValueAsString(new Product("Updated 2", 250.00))))
-                .andExpect(status().isOk());
+        String next = mockMvc.perform(get("/api/products"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(100)))
+                .andExpect(jsonPath("$[99].id").value(lastOnFirstPage))
+                .andExpect(header().string("Link", containsString("after=" + lastOnFirstPage)))
+                .andExpect(header().string("Link", endsWith("; rel=\"next\"")))
+                .andReturn().getResponse().getHeader("Link");
+        mockMvc.perform(get(URI.create(next.substring(next.indexOf('<') + 1, next.indexOf('>')))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[*].name", contains("Listed Item 101")))
+                .andExpect(header().doesNotExist("Link"));
 
-        // Verify both updates were successful
-        mockMvc.perform(get("/api/products"))
+        mockMvc.perform(get("/api/products").param("fields", "name"))
                 .andExpect(status().isOk())
-                .andExpect(jsonPath("$", hasSize(2)))
-                .andExpect(jsonPath("$[*].name", containsInAnyOrder("Updated 1", "Updated 2")));
+                .andExpect(jsonPath("$", hasSize(100)))
+                .andExpect(header().string("Link", containsString("fields=name")))
+                .andExpect(header().string("Link", containsString("after=" + lastOnFirstPage)));
+    }
+
+    @Test
+    @Order(45)
+    @DisplayName("45. Stale export temp files removed test")
+    void testStaleExportTempFilesRemoved() throws Exception {
+        createProductAndExtract(new Product("Snapshot Item", 10.00));
+        productExportService.refreshSnapshot();
+        Path snapshotDir = productExportService.currentSnapshot().orElseThrow().file().getParent();
+
+        // Left behind by a process that died during COPY
+        Path stale = Files.createTempFile(snapshotDir, ".export-", ".tmp");
+        productExportService.refreshSnapshot();
+        Assertions.assertFalse(Files.exists(stale));
+
+        // A restarted service cleans up before its first refresh
+        Path staleAtStartup = Files.createTempFile(snapshotDir, ".export-", ".tmp");
+        ProductExportService restarted = new ProductExportService(
+                productJdbcRepository, transactionManager, snapshotDir, ProductExportService.Format.CSV);
+        try {
+            Assertions.assertFalse(Files.exists(staleAtStartup));
+            Assertions.assertEquals(productExportService.currentSnapshot().orElseThrow().file(),
+                    restarted.currentSnapshot().orElseThrow().file());
+        } finally {
+            restarted.shutdown();
+        }
+    }
+
+    @Test
+    @Order(46)
+    @DisplayName("46. Patch that changes nothing keeps the version test")
+    void testNoOpPatchKeepsVersion() throws Exception {
+        Product product = createProductAndExtract(new Product("Unchanged", 12.00));
+        String productETag = "\"" + product.getVersion() + "\"";
+
+        for (String patch : List.of("{}", "{\"price\": 12.00}", "{\"name\": \"Unchanged\"}")) {
+            mockMvc.perform(patch("/api/products/" + product.getId())
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(patch))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.version").value(product.getVersion()))
+                    .andExpect(header().string("ETag", productETag));
+        }
+
+        // The ETag the client already holds is still current
+        mockMvc.perform(patch("/api/products/" + product.getId())
+                        .header("If-Match", productETag)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"price\": 13.00}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.version").value(product.getVersion() + 1));
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,153 @@
+package uz.fido.ProductRestApiIntegrationTest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.*;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import uz.fido.ProductRestApiIntegrationTest.model.Product;
+import uz.fido.ProductRestApiIntegrationTest.service.PriceWriteBehindService;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Price-only PATCHes with write-behind switched on. The flush interval is far longer than any
+ * test, so rows change only when a test flushes, a direct write takes a price or max-pending
+ * ids are waiting.
+ */
+@SpringBootTest(
+        webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = {"product.write-behind.enabled=true", "product.write-behind.flush-interval=1h",
+                "product.write-behind.max-pending=3"})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+@DisplayName("Write-Behind Integration Tests")
+class WriteBehindIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PriceWriteBehindService priceWriteBehindService;
+
+    @BeforeEach
+    @DisplayName("Clean database before each test")
+    void setUp() {
+        // Nothing a previous test left pending may reach the next test's rows
+        priceWriteBehindService.flush();
+        // Tests run against the Flyway schema, which outlives them; empty every table a test can write to
+        jdbcTemplate.execute("TRUNCATE products, product_outbox, product_events, product_import_jobs,"
+                + " product_import_job_errors, product_idempotency_keys");
+    }
+
+    @Test
+    @Order(1)
+    @DisplayName("1. Buffered price read back before the flush")
+    void testBufferedPriceIsReadBack() throws Exception {
+        Product product = createProduct(new Product("Buffered Item", 10.00));
+
+        patchPrice(product.getId(), 12.50);
+        mockMvc.perform(get("/api/products/" + product.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.price").value(12.50));
+        Assertions.assertEquals(10.00, storedPrice(product.getId()));
+
+        priceWriteBehindService.flush();
+        Assertions.assertEquals(12.50, storedPrice(product.getId()));
+        mockMvc.perform(get("/api/products/" + product.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.price").value(12.50))
+                .andExpect(jsonPath("$.version").isNumber());
+    }
+
+    @Test
+    @Order(2)
+    @DisplayName("2. Direct write carries the pending price")
+    void testDirectWriteCarriesPendingPrice() throws Exception {
+        Product product = createProduct(new Product("Direct Item", 10.00));
+
+        patchPrice(product.getId(), 15.00);
+        mockMvc.perform(patch("/api/products/" + product.getId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\": \"Renamed Item\"}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.name").value("Renamed Item"))
+                .andExpect(jsonPath("$.price").value(15.00));
+        Assertions.assertEquals(15.00, storedPrice(product.getId()));
+
+        // The price went out with the rename; a flush has nothing left to overwrite it with
+        jdbcTemplate.update("UPDATE products SET price = 16.00 WHERE id = ?", product.getId());
+        priceWriteBehindService.flush();
+        Assertions.assertEquals(16.00, storedPrice(product.getId()));
+    }
+
+    @Test
+    @Order(3)
+    @DisplayName("3. Max-pending ids trigger a flush")
+    void testMaxPendingTriggersFlush() throws Exception {
+        Product first = createProduct(new Product("Pending Item 1", 1.00));
+        Product second = createProduct(new Product("Pending Item 2", 2.00));
+        Product third = createProduct(new Product("Pending Item 3", 3.00));
+
+        patchPrice(first.getId(), 11.00);
+        patchPrice(second.getId(), 12.00);
+        Assertions.assertEquals(1.00, storedPrice(first.getId()));
+
+        patchPrice(third.getId(), 13.00);
+        for (int attempt = 0; attempt < 50 && storedPrice(third.getId()) != 13.00; attempt++) {
+            Thread.sleep(100);
+        }
+        Assertions.assertEquals(11.00, storedPrice(first.getId()));
+        Assertions.assertEquals(12.00, storedPrice(second.getId()));
+        Assertions.assertEquals(13.00, storedPrice(third.getId()));
+    }
+
+    @Test
+    @Order(4)
+    @DirtiesContext
+    @DisplayName("4. Shutdown flushes pending prices and writes later ones through")
+    void testShutdownFlush() throws Exception {
+        Product product = createProduct(new Product("Shutdown Item", 10.00));
+
+        patchPrice(product.getId(), 20.00);
+        priceWriteBehindService.flushOnShutdown();
+        Assertions.assertEquals(20.00, storedPrice(product.getId()));
+
+        patchPrice(product.getId(), 30.00);
+        Assertions.assertEquals(30.00, storedPrice(product.getId()));
+    }
+
+    private Product createProduct(Product product) throws Exception {
+        String created = mockMvc.perform(post("/api/products")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(product)))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readValue(created, Product.class);
+    }
+
+    private void patchPrice(Long id, double price) throws Exception {
+        mockMvc.perform(patch("/api/products/" + id)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"price\": " + price + "}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.price").value(price));
+    }
+
+    private double storedPrice(Long id) {
+        return jdbcTemplate.queryForObject("SELECT price FROM products WHERE id = ?", Double.class, id);
+    }
+}
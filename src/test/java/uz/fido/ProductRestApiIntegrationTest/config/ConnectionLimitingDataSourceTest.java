@@ -0,0 +1,109 @@
+package uz.fido.ProductRestApiIntegrationTest.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.*;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLTransientConnectionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The virtual-thread connection limiter in front of a stub pool that always has a connection.
+ */
+@DisplayName("Connection Limiting DataSource Tests")
+class ConnectionLimitingDataSourceTest {
+
+    private static final long TIMEOUT_MILLIS = 300;
+
+    private StubDataSource target;
+    private ConnectionLimitingDataSource dataSource;
+
+    @BeforeEach
+    void setUp() {
+        target = new StubDataSource();
+        dataSource = new ConnectionLimitingDataSource(target, 2, TIMEOUT_MILLIS);
+    }
+
+    @Test
+    @DisplayName("Callers over the limit fail once the timeout has passed")
+    void testCallerOverLimitTimesOut() throws Exception {
+        Connection first = dataSource.getConnection();
+        Connection second = dataSource.getConnection();
+
+        long start = System.nanoTime();
+        Assertions.assertThrows(SQLTransientConnectionException.class, dataSource::getConnection);
+        long waitedMillis = (System.nanoTime() - start) / 1_000_000;
+        Assertions.assertTrue(waitedMillis >= TIMEOUT_MILLIS, "waited " + waitedMillis + "ms");
+        Assertions.assertTrue(waitedMillis < TIMEOUT_MILLIS + 2_000, "waited " + waitedMillis + "ms");
+        // The timed-out caller never reached the pool
+        Assertions.assertEquals(2, target.borrowed.get());
+
+        first.close();
+        second.close();
+    }
+
+    @Test
+    @DisplayName("Closing a connection hands its permit to the next caller, once")
+    void testCloseReleasesPermit() throws Exception {
+        Connection first = dataSource.getConnection();
+        dataSource.getConnection();
+
+        first.close();
+        first.close();
+        Assertions.assertNotNull(dataSource.getConnection());
+        Assertions.assertThrows(SQLTransientConnectionException.class, dataSource::getConnection);
+    }
+
+    @Test
+    @DisplayName("A failed borrow gives its permit back")
+    void testFailedBorrowReleasesPermit() throws Exception {
+        target.failNext = true;
+        Assertions.assertThrows(SQLTransientConnectionException.class, dataSource::getConnection);
+
+        dataSource.getConnection();
+        dataSource.getConnection();
+        Assertions.assertEquals(2, target.borrowed.get());
+    }
+
+    @Test
+    @DisplayName("The connection timeout is split between the limiter and Hikari")
+    void testTimeoutSplitWithHikari() {
+        try (HikariDataSource hikari = new HikariDataSource()) {
+            hikari.setMaximumPoolSize(5);
+            hikari.setConnectionTimeout(20_000);
+
+            Object limited = VirtualThreadConfig.connectionLimitingDataSourcePostProcessor()
+                    .postProcessAfterInitialization(hikari, "dataSource");
+
+            Assertions.assertInstanceOf(ConnectionLimitingDataSource.class, limited);
+            // The other 15s are the limiter's
+            Assertions.assertEquals(5_000, hikari.getConnectionTimeout());
+        }
+    }
+
+    private static final class StubDataSource extends AbstractDataSource {
+
+        private final AtomicInteger borrowed = new AtomicInteger();
+        private volatile boolean failNext;
+
+        @Override
+        public Connection getConnection() throws SQLTransientConnectionException {
+            if (failNext) {
+                failNext = false;
+                throw new SQLTransientConnectionException("Pool timed out");
+            }
+            borrowed.incrementAndGet();
+            return (Connection) Proxy.newProxyInstance(
+                    Connection.class.getClassLoader(),
+                    new Class<?>[]{Connection.class},
+                    (proxy, method, args) -> null);
+        }
+
+        @Override
+        public Connection getConnection(String username, String password) throws SQLTransientConnectionException {
+            return getConnection();
+        }
+    }
+}
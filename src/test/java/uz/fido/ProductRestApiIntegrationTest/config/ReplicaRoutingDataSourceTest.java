@@ -0,0 +1,231 @@
+package uz.fido.ProductRestApiIntegrationTest.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import org.junit.jupiter.api.*;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Which data source a read-only connection comes from, with stub replica pools whose reported
+ * replay lag and active connections the tests set. Lag checks run when a test asks for them.
+ */
+@DisplayName("Replica Routing DataSource Tests")
+class ReplicaRoutingDataSourceTest {
+
+    private static final long MAX_LAG_MILLIS = 5_000;
+
+    private CountingDataSource primary;
+    private StubPool first;
+    private StubPool second;
+    private ReplicaRoutingDataSource routing;
+
+    @BeforeEach
+    void setUp() {
+        primary = new CountingDataSource();
+        first = new StubPool();
+        second = new StubPool();
+    }
+
+    @AfterEach
+    void tearDown() {
+        routing.close();
+    }
+
+    @Test
+    @DisplayName("Round robin takes the replicas in turn")
+    void testRoundRobin() throws Exception {
+        routing = route(ReplicaRoutingDataSource.Strategy.ROUND_ROBIN);
+
+        for (int i = 0; i < 4; i++) {
+            routing.getConnection();
+        }
+        Assertions.assertEquals(2, first.borrowed.get());
+        Assertions.assertEquals(2, second.borrowed.get());
+        Assertions.assertEquals(0, primary.borrowed.get());
+    }
+
+    @Test
+    @DisplayName("Least connections takes the replica with the fewest active connections")
+    void testLeastConnections() throws Exception {
+        routing = route(ReplicaRoutingDataSource.Strategy.LEAST_CONNECTIONS);
+        first.active = 3;
+        second.active = 1;
+
+        routing.getConnection();
+        routing.getConnection();
+        Assertions.assertEquals(0, first.borrowed.get());
+        Assertions.assertEquals(2, second.borrowed.get());
+
+        second.active = 4;
+        routing.getConnection();
+        Assertions.assertEquals(1, first.borrowed.get());
+    }
+
+    @Test
+    @DisplayName("Lagging replicas are skipped, and with none left reads go to the primary")
+    void testLagFallback() throws Exception {
+        routing = route(ReplicaRoutingDataSource.Strategy.ROUND_ROBIN);
+
+        first.lagSeconds = 10;
+        routing.checkReplicas();
+        routing.getConnection();
+        routing.getConnection();
+        Assertions.assertEquals(0, first.borrowed.get());
+        Assertions.assertEquals(2, second.borrowed.get());
+
+        second.lagSeconds = 6;
+        routing.checkReplicas();
+        routing.getConnection();
+        Assertions.assertEquals(1, primary.borrowed.get());
+
+        // Caught up again by the next check
+        first.lagSeconds = 0;
+        second.lagSeconds = 4.5;
+        routing.checkReplicas();
+        routing.getConnection();
+        routing.getConnection();
+        Assertions.assertEquals(1, first.borrowed.get());
+        Assertions.assertEquals(3, second.borrowed.get());
+        Assertions.assertEquals(1, primary.borrowed.get());
+    }
+
+    @Test
+    @DisplayName("An unreachable replica is skipped until a check succeeds")
+    void testUnreachableReplica() throws Exception {
+        routing = route(ReplicaRoutingDataSource.Strategy.ROUND_ROBIN);
+        first.access.down = true;
+        second.access.down = true;
+
+        // The failed borrow falls back to the primary and takes the replica out of rotation
+        routing.getConnection();
+        routing.getConnection();
+        Assertions.assertEquals(2, primary.borrowed.get());
+        Assertions.assertEquals(2, first.attempts.get() + second.attempts.get());
+        routing.getConnection();
+        Assertions.assertEquals(3, primary.borrowed.get());
+        Assertions.assertEquals(2, first.attempts.get() + second.attempts.get());
+
+        // A failing lag check keeps it out, a passing one brings it back
+        routing.checkReplicas();
+        first.access.down = false;
+        routing.checkReplicas();
+        routing.getConnection();
+        Assertions.assertEquals(1, first.borrowed.get());
+    }
+
+    @Test
+    @DisplayName("Reads inside onPrimary, and reads with other credentials, stay on the primary")
+    void testPrimaryPinning() throws Exception {
+        routing = route(ReplicaRoutingDataSource.Strategy.ROUND_ROBIN);
+
+        ReplicaRoutingDataSource.onPrimary(() -> {
+            getConnection(routing);
+            // Nested calls keep the pin, and leaving them does not drop it early
+            ReplicaRoutingDataSource.onPrimary(() -> getConnection(routing));
+            return getConnection(routing);
+        });
+        Assertions.assertEquals(3, primary.borrowed.get());
+
+        routing.getConnection("reporting", "secret");
+        Assertions.assertEquals(4, primary.borrowed.get());
+
+        routing.getConnection();
+        Assertions.assertEquals(4, primary.borrowed.get());
+        Assertions.assertEquals(1, first.borrowed.get() + second.borrowed.get());
+    }
+
+    // Waits for the check the data source runs at construction, so later ones are the test's
+    private ReplicaRoutingDataSource route(ReplicaRoutingDataSource.Strategy strategy) throws InterruptedException {
+        ReplicaRoutingDataSource dataSource = new ReplicaRoutingDataSource(primary, List.of(first, second),
+                List.<DataSource>of(first.access, second.access), strategy, MAX_LAG_MILLIS, 3_600_000);
+        for (int attempt = 0; attempt < 50 && (first.checks.get() == 0 || second.checks.get() == 0); attempt++) {
+            Thread.sleep(100);
+        }
+        Assertions.assertTrue(first.checks.get() > 0 && second.checks.get() > 0);
+        return dataSource;
+    }
+
+    private static Connection getConnection(DataSource dataSource) {
+        try {
+            return dataSource.getConnection();
+        } catch (SQLException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // Connection, Statement or ResultSet answering the lag query with lagSeconds
+    private static Object stub(Class<?> type, double lagSeconds, Runnable onClose) {
+        return Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (proxy, method, args) ->
+                switch (method.getName()) {
+                    case "createStatement" -> stub(Statement.class, lagSeconds, () -> { });
+                    case "executeQuery" -> stub(ResultSet.class, lagSeconds, () -> { });
+                    case "next" -> true;
+                    case "getDouble" -> lagSeconds;
+                    case "close" -> {
+                        onClose.run();
+                        yield null;
+                    }
+                    default -> null;
+                });
+    }
+
+    private static class CountingDataSource extends AbstractDataSource {
+
+        final AtomicInteger attempts = new AtomicInteger();
+        final AtomicInteger borrowed = new AtomicInteger();
+        volatile boolean down;
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            attempts.incrementAndGet();
+            if (down) {
+                throw new SQLTransientConnectionException("Connection refused");
+            }
+            borrowed.incrementAndGet();
+            return (Connection) stub(Connection.class, 0, () -> { });
+        }
+
+        @Override
+        public Connection getConnection(String username, String password) throws SQLException {
+            return getConnection();
+        }
+    }
+
+    // The pool the lag check reads from; reads the router hands out are counted by its access,
+    // and both are down together
+    private static final class StubPool extends HikariDataSource {
+
+        private final AtomicInteger checks = new AtomicInteger();
+        private final CountingDataSource access = new CountingDataSource();
+        private final AtomicInteger borrowed = access.borrowed;
+        private final AtomicInteger attempts = access.attempts;
+        private volatile double lagSeconds;
+        private volatile int active;
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            if (access.down) {
+                throw new SQLTransientConnectionException("Connection refused");
+            }
+            // The check records its result before closing the connection
+            return (Connection) stub(Connection.class, lagSeconds, checks::incrementAndGet);
+        }
+
+        @Override
+        public HikariPoolMXBean getHikariPoolMXBean() {
+            return (HikariPoolMXBean) Proxy.newProxyInstance(HikariPoolMXBean.class.getClassLoader(),
+                    new Class<?>[]{HikariPoolMXBean.class},
+                    (proxy, method, args) -> method.getName().equals("getActiveConnections") ? active : 0);
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package uz.fido.ProductRestApiIntegrationTest.service;
+
+import org.junit.jupiter.api.*;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * The write-behind buffer on its own: what reads see, what a direct write takes and what a
+ * flush writes, puts back or leaves behind.
+ */
+@DisplayName("Price Write Buffer Tests")
+class PriceWriteBufferTest {
+
+    private PriceWriteBuffer buffer;
+
+    @BeforeEach
+    void setUp() {
+        buffer = new PriceWriteBuffer(4);
+    }
+
+    @Test
+    @DisplayName("Reads see the latest pending price, also while it is being flushed")
+    void testReadYourWrites() {
+        Assertions.assertNull(buffer.get(1L));
+
+        buffer.offer(1L, 10.00);
+        buffer.offer(1L, 12.50);
+        Assertions.assertEquals(12.50, buffer.get(1L));
+        Assertions.assertEquals(1, buffer.pendingCount());
+
+        Map<Long, Double> batch = buffer.beginFlush();
+        Assertions.assertEquals(Map.of(1L, 12.50), batch);
+        Assertions.assertEquals(12.50, buffer.get(1L));
+        buffer.endFlush(true);
+        Assertions.assertNull(buffer.get(1L));
+        Assertions.assertEquals(0, buffer.pendingCount());
+    }
+
+    @Test
+    @DisplayName("A direct write takes the pending price, and a rolled back one puts it back")
+    void testDirectWriteTakesPendingPrice() {
+        buffer.offer(1L, 10.00);
+        buffer.offer(2L, 20.00);
+
+        Assertions.assertEquals(10.00, buffer.take(1L));
+        Assertions.assertNull(buffer.take(1L));
+        Assertions.assertEquals(1, buffer.pendingCount());
+        Assertions.assertEquals(Map.of(2L, 20.00), buffer.beginFlush());
+        buffer.endFlush(true);
+
+        // Rolled back: the taken price is pending again, unless a newer one arrived meanwhile
+        buffer.restore(1L, 10.00);
+        Assertions.assertEquals(10.00, buffer.get(1L));
+        buffer.offer(3L, 31.00);
+        buffer.restore(3L, 30.00);
+        Assertions.assertEquals(31.00, buffer.get(3L));
+        Assertions.assertEquals(2, buffer.pendingCount());
+    }
+
+    @Test
+    @DisplayName("A failed flush puts its prices back behind newer ones")
+    void testRestoreAfterRolledBackFlush() {
+        buffer.offer(1L, 10.00);
+        buffer.offer(2L, 20.00);
+
+        Assertions.assertEquals(Map.of(1L, 10.00, 2L, 20.00), buffer.beginFlush());
+        Assertions.assertEquals(0, buffer.pendingCount());
+        buffer.offer(2L, 25.00);
+        buffer.endFlush(false);
+
+        Assertions.assertEquals(2, buffer.pendingCount());
+        Assertions.assertEquals(10.00, buffer.get(1L));
+        Assertions.assertEquals(25.00, buffer.get(2L));
+        Assertions.assertEquals(Map.of(1L, 10.00, 2L, 25.00), buffer.beginFlush());
+        buffer.endFlush(true);
+    }
+
+    @Test
+    @DisplayName("Taking an id that is being flushed waits for the flush")
+    void testTakeWaitsForRunningFlush() throws Exception {
+        buffer.offer(1L, 10.00);
+        buffer.beginFlush();
+
+        CompletableFuture<Double> taken = CompletableFuture.supplyAsync(() -> buffer.take(1L));
+        Assertions.assertThrows(TimeoutException.class, () -> taken.get(200, TimeUnit.MILLISECONDS));
+
+        buffer.endFlush(true);
+        // Flushed and committed: nothing is left for the direct write to carry
+        Assertions.assertNull(taken.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    @DisplayName("Offers report the number of pending ids for the max-pending trigger")
+    void testPendingCountForMaxPendingTrigger() {
+        Assertions.assertEquals(1, buffer.offer(1L, 10.00));
+        Assertions.assertEquals(2, buffer.offer(2L, 20.00));
+        // Another price for a pending id coalesces
+        Assertions.assertEquals(2, buffer.offer(1L, 11.00));
+        Assertions.assertEquals(3, buffer.offer(3L, 30.00));
+
+        buffer.beginFlush();
+        Assertions.assertEquals(1, buffer.offer(4L, 40.00));
+        buffer.endFlush(true);
+        Assertions.assertEquals(1, buffer.pendingCount());
+    }
+
+    @Test
+    @DisplayName("A closed buffer refuses new prices but still hands over the pending ones")
+    void testCloseForShutdownFlush() {
+        buffer.offer(1L, 10.00);
+        buffer.close();
+
+        Assertions.assertEquals(-1, buffer.offer(2L, 20.00));
+        Assertions.assertNull(buffer.get(2L));
+        Assertions.assertEquals(Map.of(1L, 10.00), buffer.beginFlush());
+        buffer.endFlush(true);
+        Assertions.assertEquals(0, buffer.pendingCount());
+    }
+}